@@ -0,0 +1,182 @@
+package com.ecommerce.coupons_management.benchmark;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.metrics.CouponMetrics;
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.service.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the coupon evaluation engine on synthetic catalogs. The catalog mixes cart-wise
+ * (10%), product-wise (60%) and BXGY (30%) coupons over {@value #PRODUCTS} products; the cart has
+ * {@code cartLines} distinct products. {@code parallelThreshold} compares parallel evaluation of
+ * large candidate sets with the sequential path. Repositories are in memory, see {@link
+ * InMemoryRepositories}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CouponEvaluationBenchmark {
+
+  private static final int PRODUCTS = 10_000;
+  private static final int TARGETS = 1024;
+
+  @Param({"1000", "100000", "1000000"})
+  private int catalogSize;
+
+  @Param({"1", "10", "100", "1000"})
+  private int cartLines;
+
+  @Param({"2000", "2147483647"})
+  private int parallelThreshold;
+
+  private CouponEvaluationPool couponEvaluationPool;
+  private CouponService couponService;
+  private CartRequestDTO cart;
+
+  /** Coupons that are candidates for the cart, cycled through by the single-coupon benchmarks. */
+  private Coupon[] targets;
+
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    LocalDate expiry = LocalDate.now().plusYears(1);
+
+    Map<Long, Product> products = new HashMap<>();
+    for (long id = 1; id <= PRODUCTS; id++) {
+      products.put(
+          id, Product.builder().id(id).name("P" + id).price(1 + random.nextInt(100)).build());
+    }
+
+    Map<String, Coupon> byCode = new HashMap<>();
+    Map<Long, Coupon> byId = new HashMap<>();
+    Map<Long, List<BxGyDetail>> rules = new HashMap<>();
+    List<BxGyDetail> allRules = new ArrayList<>();
+    for (long id = 1; id <= catalogSize; id++) {
+      int kind = (int) (id % 10);
+      Coupon coupon =
+          Coupon.builder()
+              .id(id)
+              .couponCode("BENCH-" + id)
+              .isActive(true)
+              .expiryDate(expiry)
+              .exclusive(false)
+              .priority(0)
+              .build();
+      if (kind == 0) {
+        coupon.setType(CouponType.CART_WISE);
+        coupon.setThreshold((double) random.nextInt(10_000));
+        coupon.setDiscount(5.0 + random.nextInt(20));
+      } else if (kind <= 6) {
+        coupon.setType(CouponType.PRODUCT_WISE);
+        coupon.setProductId(randomProduct(random));
+        coupon.setDiscount(5.0 + random.nextInt(40));
+      } else {
+        coupon.setType(CouponType.BXGY);
+        List<BxGyProduct> buy = new ArrayList<>();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+          buy.add(new BxGyProduct(randomProduct(random), 1 + random.nextInt(3)));
+        }
+        BxGyDetail rule =
+            BxGyDetail.builder()
+                .coupon(coupon)
+                .buyProducts(buy)
+                .getProducts(List.of(new BxGyProduct(randomProduct(random), 1)))
+                .repetitionLimit(2)
+                .build();
+        rules.put(id, List.of(rule));
+        allRules.add(rule);
+      }
+      byCode.put(coupon.getCouponCode(), coupon);
+      byId.put(id, coupon);
+    }
+
+    couponEvaluationPool =
+        new CouponEvaluationPool(
+            parallelThreshold, parallelThreshold, 0, new SimpleMeterRegistry());
+    CatalogVersion catalogVersion = new CatalogVersion();
+    CouponIndex couponIndex = new CouponIndex();
+    couponIndex.rebuild(byId.values(), allRules);
+    couponService =
+        new CouponService(
+            InMemoryRepositories.coupons(byCode, byId),
+            InMemoryRepositories.bxgyDetails(rules),
+            InMemoryRepositories.products(products),
+            couponIndex,
+            new BxGyRuleCache(InMemoryRepositories.bxgyDetails(rules)),
+            new BestDealSearch(3, 50),
+            null,
+            null,
+            new CouponRedemptionService(
+                couponIndex,
+                InMemoryRepositories.coupons(byCode, byId),
+                null,
+                catalogVersion,
+                300,
+                20),
+            new CouponMetrics(new SimpleMeterRegistry()),
+            couponEvaluationPool,
+            catalogVersion,
+            new EvaluationCache(catalogVersion, 0, 0, new SimpleMeterRegistry()),
+            new CouponCodeCache(catalogVersion, catalogSize, 0.01, 1, 1, new SimpleMeterRegistry()),
+            null);
+
+    List<CartRequestDTO.CartItem> items = new ArrayList<>();
+    Set<Long> inCart = new LinkedHashSet<>();
+    double total = 0;
+    while (inCart.size() < cartLines) {
+      long productId = randomProduct(random);
+      if (!inCart.add(productId)) continue;
+      CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
+      item.setProductId(productId);
+      item.setQuantity(1 + random.nextInt(5));
+      items.add(item);
+      total += item.getQuantity() * products.get(productId).getPrice();
+    }
+    CartRequestDTO.Cart requestCart = new CartRequestDTO.Cart();
+    requestCart.setItems(items);
+    cart = new CartRequestDTO();
+    cart.setCart(requestCart);
+
+    List<Coupon> candidates = couponIndex.candidates(inCart, total);
+    if (candidates.isEmpty()) candidates = List.copyOf(byId.values());
+    targets = new Coupon[TARGETS];
+    for (int i = 0; i < TARGETS; i++) {
+      targets[i] = candidates.get(random.nextInt(candidates.size()));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    couponEvaluationPool.shutdown();
+  }
+
+  private static long randomProduct(Random random) {
+    return 1 + random.nextInt(PRODUCTS);
+  }
+
+  private Coupon nextTarget() {
+    return targets[next++ & (TARGETS - 1)];
+  }
+
+  @Benchmark
+  public CartResponseDTO applyCoupon() {
+    cart.setCouponCode(nextTarget().getCouponCode());
+    return couponService.applyCoupon(cart);
+  }
+
+  @Benchmark
+  public ApplicableCouponsResponseDTO getApplicableCoupons() {
+    return couponService.evaluateApplicableCoupons(cart);
+  }
+}
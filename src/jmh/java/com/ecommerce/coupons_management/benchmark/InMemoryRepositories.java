@@ -0,0 +1,79 @@
+package com.ecommerce.coupons_management.benchmark;
+
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.repository.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Map-backed stand-ins for the repositories on the evaluation path, so benchmarks measure the
+ * engine rather than H2. Only the methods the engine calls are implemented.
+ */
+final class InMemoryRepositories {
+
+  private InMemoryRepositories() {}
+
+  static CouponRepository coupons(Map<String, Coupon> byCode, Map<Long, Coupon> byId) {
+    return proxy(
+        CouponRepository.class,
+        (method, args) ->
+            switch (method.getName()) {
+              case "findByCouponCode" -> Optional.ofNullable(byCode.get((String) args[0]));
+              case "findById" -> Optional.ofNullable(byId.get((Long) args[0]));
+              default -> throw unsupported(method);
+            });
+  }
+
+  static ProductRepository products(Map<Long, Product> byId) {
+    return proxy(
+        ProductRepository.class,
+        (method, args) ->
+            switch (method.getName()) {
+              case "findAllById" -> {
+                List<Product> products = new ArrayList<>();
+                for (Object id : (Iterable<?>) args[0]) {
+                  Product product = byId.get((Long) id);
+                  if (product != null) products.add(product);
+                }
+                yield products;
+              }
+              case "findById" -> Optional.ofNullable(byId.get((Long) args[0]));
+              default -> throw unsupported(method);
+            });
+  }
+
+  static BxGyDetailRepository bxgyDetails(Map<Long, List<BxGyDetail>> byCouponId) {
+    return proxy(
+        BxGyDetailRepository.class,
+        (method, args) ->
+            switch (method.getName()) {
+              case "findByCouponIdIn" -> {
+                List<BxGyDetail> details = new ArrayList<>();
+                for (Object id : (Collection<?>) args[0]) {
+                  details.addAll(byCouponId.getOrDefault((Long) id, List.of()));
+                }
+                yield details;
+              }
+              case "findByCouponId" -> byCouponId.getOrDefault((Long) args[0], List.of());
+              default -> throw unsupported(method);
+            });
+  }
+
+  private static <T> T proxy(Class<T> type, BiFunction<Method, Object[], Object> handler) {
+    InvocationHandler invocationHandler =
+        (proxy, method, args) ->
+            switch (method.getName()) {
+              case "toString" -> "InMemory" + type.getSimpleName();
+              case "hashCode" -> System.identityHashCode(proxy);
+              case "equals" -> proxy == args[0];
+              default -> handler.apply(method, args);
+            };
+    return type.cast(
+        Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocationHandler));
+  }
+
+  private static UnsupportedOperationException unsupported(Method method) {
+    return new UnsupportedOperationException(method.getName() + " is not used by the benchmarks");
+  }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.coupons_management.benchmark;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Serialization cost of the API responses: the {@code HashMap} bodies the controller and exception
+ * handler used to build against the typed DTOs that replaced them, with and without the Blackbird
+ * module. Run with {@code -Djmh.options="-prof gc"} to compare allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponseSerializationBenchmark {
+
+  @Param({"reflection", "blackbird"})
+  private String accessors;
+
+  @Param({"10", "1000"})
+  private int applicableCoupons;
+
+  private ObjectMapper objectMapper;
+  private final OutputStream sink = OutputStream.nullOutputStream();
+
+  private LocalDate expiry;
+  private ApplicableCouponsResponseDTO applicableTyped;
+  private List<Map<String, Object>> applicableMaps;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    objectMapper =
+        new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    if (accessors.equals("blackbird")) objectMapper.registerModule(new BlackbirdModule());
+
+    expiry = LocalDate.now().plusDays(30);
+    List<ApplicableCouponsResponseDTO.CouponInfo> infos = new ArrayList<>();
+    applicableMaps = new ArrayList<>();
+    for (long id = 1; id <= applicableCoupons; id++) {
+      CouponType type = CouponType.values()[(int) (id % 3)];
+      infos.add(
+          ApplicableCouponsResponseDTO.CouponInfo.builder()
+              .coupon_id(id)
+              .type(type.label())
+              .discount(id * 0.25)
+              .build());
+      Map<String, Object> info = new HashMap<>();
+      info.put("coupon_id", id);
+      info.put("type", type.name().toLowerCase());
+      info.put("discount", id * 0.25);
+      applicableMaps.add(info);
+    }
+    applicableTyped = ApplicableCouponsResponseDTO.builder().applicable_coupons(infos).build();
+  }
+
+  @Benchmark
+  public void createdAsMap() throws IOException {
+    Map<String, Object> response = new HashMap<>();
+    response.put("coupon_id", 42L);
+    response.put("coupon_code", "COUPON-7K3M9QX2A");
+    response.put("type", CouponType.CART_WISE);
+    response.put("discount", 10.0);
+    response.put("threshold", 100.0);
+    response.put("expiry_date", expiry);
+    response.put("is_active", true);
+    objectMapper.writeValue(sink, response);
+  }
+
+  @Benchmark
+  public void createdTyped() throws IOException {
+    objectMapper.writeValue(
+        sink,
+        CouponCreatedResponseDTO.builder()
+            .coupon_id(42L)
+            .coupon_code("COUPON-7K3M9QX2A")
+            .type(CouponType.CART_WISE)
+            .discount(10.0)
+            .threshold(100.0)
+            .expiry_date(expiry)
+            .is_active(true)
+            .build());
+  }
+
+  @Benchmark
+  public void errorAsMap() throws IOException {
+    Map<String, Object> response = new HashMap<>();
+    response.put("timestamp", LocalDateTime.now());
+    response.put("status", 404);
+    response.put("error", "Coupon Not Found");
+    response.put("message", "Coupon not found with ID: 42");
+    objectMapper.writeValue(sink, response);
+  }
+
+  @Benchmark
+  public void errorTyped() throws IOException {
+    objectMapper.writeValue(
+        sink,
+        ErrorResponseDTO.builder()
+            .timestamp(LocalDateTime.now())
+            .status(404)
+            .error("Coupon Not Found")
+            .message("Coupon not found with ID: 42")
+            .build());
+  }
+
+  @Benchmark
+  public void applicableAsMaps() throws IOException {
+    objectMapper.writeValue(sink, Map.of("applicable_coupons", applicableMaps));
+  }
+
+  @Benchmark
+  public void applicableTyped() throws IOException {
+    objectMapper.writeValue(sink, applicableTyped);
+  }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.coupons_management.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+  /**
+   * Replaces reflective getter and setter calls in Jackson's cached bean (de)serializers with
+   * generated lambdas. Spring Boot registers every Jackson module bean with the shared mapper.
+   */
+  @Bean
+  public BlackbirdModule blackbirdModule() {
+    return new BlackbirdModule();
+  }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.coupons_management.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs which thread model serves requests. Spring Boot silently ignores {@code
+ * spring.threads.virtual.enabled} before Java 21, so that case is reported as a warning.
+ */
+@Slf4j
+@Component
+public class ThreadingModeReporter {
+
+  private final Environment environment;
+
+  public ThreadingModeReporter(Environment environment) {
+    this.environment = environment;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void report() {
+    boolean requested =
+        environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+    boolean supported = JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    if (requested && supported) {
+      log.info(
+          "Serving requests on virtual threads (connection pool size {})",
+          environment.getProperty("spring.datasource.hikari.maximum-pool-size", "default"));
+    } else if (requested) {
+      log.warn(
+          "Virtual threads requested but Java {} does not support them; using platform threads",
+          JavaVersion.getJavaVersion());
+    } else {
+      log.info(
+          "Serving requests on platform threads (max {})",
+          environment.getProperty("server.tomcat.threads.max", "200"));
+    }
+  }
+}
@@ -2,12 +2,21 @@ package com.ecommerce.coupons_management.controller;
 
 import com.ecommerce.coupons_management.dto.*;
 import com.ecommerce.coupons_management.model.Coupon;
+import com.ecommerce.coupons_management.service.CatalogVersion;
+import com.ecommerce.coupons_management.service.CouponBatchApplier;
+import com.ecommerce.coupons_management.service.CouponExporter;
+import com.ecommerce.coupons_management.service.CouponImporter;
+import com.ecommerce.coupons_management.service.CouponRedemptionService;
 import com.ecommerce.coupons_management.service.CouponService;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/coupons")
@@ -15,19 +24,46 @@ import org.springframework.web.bind.annotation.*;
 public class CouponController {
 
   private final CouponService couponService;
+  private final CouponExporter couponExporter;
+  private final CouponImporter couponImporter;
+  private final CouponRedemptionService couponRedemptionService;
+  private final CouponBatchApplier couponBatchApplier;
+  private final CatalogVersion catalogVersion;
 
   @PostMapping
-  public ResponseEntity<Map<String, Object>> createCoupon(@RequestBody CouponRequestDTO request) {
+  public ResponseEntity<CouponCreatedResponseDTO> createCoupon(
+      @RequestBody CouponRequestDTO request) {
     Coupon coupon = couponService.addCoupon(request);
-    Map<String, Object> response = new HashMap<>();
-    response.put("coupon_id", coupon.getId());
-    response.put("coupon_code", coupon.getCouponCode());
-    response.put("type", coupon.getType());
-    response.put("discount", coupon.getDiscount());
-    response.put("threshold", coupon.getThreshold());
-    response.put("expiry_date", coupon.getExpiryDate());
-    response.put("is_active", coupon.getIsActive());
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok(
+        CouponCreatedResponseDTO.builder()
+            .coupon_id(coupon.getId())
+            .coupon_code(coupon.getCouponCode())
+            .type(coupon.getType())
+            .discount(coupon.getDiscount())
+            .threshold(coupon.getThreshold())
+            .start_date(coupon.getStartDate())
+            .expiry_date(coupon.getExpiryDate())
+            .is_active(coupon.getIsActive())
+            .build());
+  }
+
+  @PostMapping("/bulk")
+  public ResponseEntity<BulkCouponResponseDTO> createCoupons(
+      @RequestBody List<CouponRequestDTO> requests) {
+    return ResponseEntity.ok(couponService.addCoupons(requests));
+  }
+
+  /** Imports one create request per line; the upload is parsed as it arrives. */
+  @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<CouponImportReportDTO> importCouponsNdjson(InputStream body)
+      throws IOException {
+    return ResponseEntity.ok(couponImporter.importNdjson(body));
+  }
+
+  @PostMapping(value = "/import", consumes = "text/csv")
+  public ResponseEntity<CouponImportReportDTO> importCouponsCsv(InputStream body)
+      throws IOException {
+    return ResponseEntity.ok(couponImporter.importCsv(body));
   }
 
   @GetMapping
@@ -35,16 +71,43 @@ public class CouponController {
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "5") int size,
       @RequestParam(defaultValue = "id") String sortBy,
-      @RequestParam(defaultValue = "asc") String direction) {
+      @RequestParam(defaultValue = "asc") String direction,
+      WebRequest webRequest) {
 
+    // taken before the read, so a concurrent write can only make the tag older than the body
+    String etag = catalogVersion.catalogETag();
+    if (webRequest.checkNotModified(etag)) return notModified(etag);
     Page<Coupon> coupons = couponService.getAllCoupons(page, size, sortBy, direction);
-    return ResponseEntity.ok(coupons);
+    return ResponseEntity.ok().eTag(etag).body(coupons);
+  }
+
+  /** Cursor mode for walking the whole catalog: no count query and no offset scan. */
+  @GetMapping(params = "limit")
+  public ResponseEntity<CouponCursorPageDTO> getAllCouponsByCursor(
+      @RequestParam(required = false) String after,
+      @RequestParam int limit,
+      @RequestParam(defaultValue = "id") String sortBy,
+      WebRequest webRequest) {
+    String etag = catalogVersion.catalogETag();
+    if (webRequest.checkNotModified(etag)) return notModified(etag);
+    return ResponseEntity.ok().eTag(etag).body(couponService.getCouponsAfter(after, limit, sortBy));
+  }
+
+  /** Streams the whole catalog, BXGY rules included, one JSON coupon per line. */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportCoupons() {
+    StreamingResponseBody body = couponExporter::export;
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
   }
 
+  /** Answers a matching {@code If-None-Match} from the tracked version, without a read. */
   @GetMapping("/{id}")
-  public ResponseEntity<Coupon> getCouponById(@PathVariable Long id) {
+  public ResponseEntity<Coupon> getCouponById(@PathVariable Long id, WebRequest webRequest) {
+    String etag = catalogVersion.couponETag(id);
+    if (etag != null && webRequest.checkNotModified(etag)) return notModified(etag);
     Coupon coupon = couponService.getCouponById(id);
-    return ResponseEntity.ok(coupon);
+    catalogVersion.couponRead(coupon);
+    return ResponseEntity.ok().eTag(catalogVersion.couponETag(coupon)).body(coupon);
   }
 
   @PutMapping("/{id}")
@@ -57,6 +120,24 @@ public class CouponController {
       existing.setDiscount(request.getDetails().getDiscount());
       existing.setThreshold(request.getDetails().getThreshold());
     }
+    if (request.getExclusive() != null) {
+      existing.setExclusive(request.getExclusive());
+    }
+    if (request.getPriority() != null) {
+      existing.setPriority(request.getPriority());
+    }
+    if (request.getMaxRedemptions() != null) {
+      existing.setMaxRedemptions(request.getMaxRedemptions());
+    }
+    if (request.getMaxRedemptionsPerCustomer() != null) {
+      existing.setMaxRedemptionsPerCustomer(request.getMaxRedemptionsPerCustomer());
+    }
+    if (request.getStartDate() != null) {
+      existing.setStartDate(request.getStartDate());
+    }
+    if (request.getExpiryDate() != null) {
+      existing.setExpiryDate(request.getExpiryDate());
+    }
     return ResponseEntity.ok(couponService.save(existing));
   }
 
@@ -67,37 +148,57 @@ public class CouponController {
   }
 
   @PostMapping("/applicable-coupons")
-  public ResponseEntity<Map<String, Object>> getApplicableCoupons(
+  public ResponseEntity<ApplicableCouponsResponseDTO> getApplicableCoupons(
       @RequestBody CartRequestDTO cartRequest) {
-    List<Coupon> applicableCoupons = couponService.getApplicableCoupons(cartRequest);
-
-    List<Map<String, Object>> coupons =
-        applicableCoupons.stream()
-            .map(
-                coupon -> {
-                  Map<String, Object> map = new HashMap<>();
-                  map.put("coupon_id", coupon.getId());
-                  map.put("type", coupon.getType().toString().toLowerCase());
-                  map.put("discount", couponService.getApplicableCoupons(coupon, cartRequest));
-                  return map;
-                })
-            .toList();
-
-    Map<String, Object> response = new HashMap<>();
-    response.put("applicable_coupons", coupons);
+    return ResponseEntity.ok(couponService.evaluateApplicableCoupons(cartRequest));
+  }
 
-    return ResponseEntity.ok(response);
+  @PostMapping("/best-deal")
+  public ResponseEntity<BestDealResponseDTO> getBestDeal(@RequestBody CartRequestDTO cartRequest) {
+    return ResponseEntity.ok(couponService.findBestDeal(cartRequest));
   }
 
   @PostMapping("/apply-coupon/{id}")
-  public ResponseEntity<Map<String, Object>> applyCouponToCart(
+  public ResponseEntity<ApplyCouponResponseDTO> applyCouponToCart(
       @PathVariable Long id, @RequestBody CartRequestDTO cartRequest) {
-
     CartResponseDTO responseDTO = couponService.applyCouponToCart(id, cartRequest);
+    return ResponseEntity.ok(
+        ApplyCouponResponseDTO.builder().updated_cart(responseDTO.getUpdatedCart()).build());
+  }
+
+  /**
+   * Applies a coupon to each of many carts and streams one result per cart, in request order, as
+   * NDJSON. A cart that cannot be priced gets an error line; the others are unaffected.
+   */
+  @PostMapping(value = "/apply-batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> applyCouponsToCarts(
+      @RequestBody List<BatchApplyRequestDTO> requests) {
+    couponBatchApplier.checkBatchSize(requests);
+    StreamingResponseBody body = out -> couponBatchApplier.apply(requests, out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
 
-    Map<String, Object> response = new HashMap<>();
-    response.put("updated_cart", responseDTO.getUpdatedCart());
+  /** Holds one use of the coupon for a checkout until it is confirmed, cancelled or expires. */
+  @PostMapping("/{id}/reservations")
+  public ResponseEntity<ReservationResponseDTO> reserveCoupon(
+      @PathVariable Long id, @RequestBody(required = false) ReservationRequestDTO request) {
+    String customerId = request != null ? request.getCustomerId() : null;
+    return ResponseEntity.ok(couponRedemptionService.reserve(id, customerId));
+  }
+
+  @PostMapping("/reservations/{token}/confirm")
+  public ResponseEntity<Void> confirmReservation(@PathVariable String token) {
+    couponRedemptionService.confirm(token);
+    return ResponseEntity.noContent().build();
+  }
+
+  @DeleteMapping("/reservations/{token}")
+  public ResponseEntity<Void> cancelReservation(@PathVariable String token) {
+    couponRedemptionService.cancel(token);
+    return ResponseEntity.noContent().build();
+  }
 
-    return ResponseEntity.ok(response);
+  private static <T> ResponseEntity<T> notModified(String etag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
   }
 }
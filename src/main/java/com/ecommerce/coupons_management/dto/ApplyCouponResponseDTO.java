@@ -0,0 +1,11 @@
+package com.ecommerce.coupons_management.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplyCouponResponseDTO {
+  private CartResponseDTO.UpdatedCart updated_cart;
+}
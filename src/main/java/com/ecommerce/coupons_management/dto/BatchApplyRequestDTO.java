@@ -0,0 +1,11 @@
+package com.ecommerce.coupons_management.dto;
+
+import lombok.*;
+
+/** One (cart, coupon) pair of a batch apply; the coupon is given by id or by code. */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class BatchApplyRequestDTO extends CartRequestDTO {
+  private Long couponId;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.coupons_management.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchApplyResultDTO {
+  /** Position of the pair in the submitted list. */
+  private int index;
+
+  private Long coupon_id;
+  private CartResponseDTO.UpdatedCart updated_cart;
+  private String message;
+  private String error;
+}
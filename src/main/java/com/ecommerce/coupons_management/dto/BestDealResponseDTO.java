@@ -0,0 +1,19 @@
+package com.ecommerce.coupons_management.dto;
+
+import java.util.List;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestDealResponseDTO {
+
+  /** Coupons of the cheapest combination, in the order they are applied. */
+  private List<Long> coupon_ids;
+
+  private CartResponseDTO.UpdatedCart updated_cart;
+
+  /** False when the search hit its time budget and returned the best combination found so far. */
+  private boolean search_complete;
+}
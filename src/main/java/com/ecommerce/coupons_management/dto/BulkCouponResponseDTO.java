@@ -0,0 +1,28 @@
+package com.ecommerce.coupons_management.dto;
+
+import java.util.List;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCouponResponseDTO {
+
+  private int created;
+  private int failed;
+  private List<ItemResult> results;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class ItemResult {
+    /** Position of the request in the submitted list. */
+    private int index;
+
+    private Long coupon_id;
+    private String coupon_code;
+    private String error;
+  }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.coupons_management.dto;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import java.time.LocalDate;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponCreatedResponseDTO {
+  private Long coupon_id;
+  private String coupon_code;
+  private CouponType type;
+  private Double discount;
+  private Double threshold;
+  private LocalDate start_date;
+  private LocalDate expiry_date;
+  private Boolean is_active;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.coupons_management.dto;
+
+import com.ecommerce.coupons_management.model.Coupon;
+import java.util.List;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponCursorPageDTO {
+
+  private List<Coupon> content;
+
+  /** Pass as {@code after} to fetch the next slice; null on the last slice. */
+  private String next_cursor;
+
+  private boolean has_next;
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.coupons_management.dto;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import java.time.LocalDate;
+import lombok.*;
+
+/**
+ * One line of the NDJSON catalog export. Apart from {@code id} and {@code couponCode}, the fields
+ * mirror {@link CouponRequestDTO}, so an exported line can be posted back as a create request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponExportDTO {
+  private Long id;
+  private String couponCode;
+  private CouponType type;
+  private CouponRequestDTO.Details details;
+  private Boolean isActive;
+  private LocalDate startDate;
+  private LocalDate expiryDate;
+  private Boolean exclusive;
+  private Integer priority;
+  private Integer maxRedemptions;
+  private Integer maxRedemptionsPerCustomer;
+}
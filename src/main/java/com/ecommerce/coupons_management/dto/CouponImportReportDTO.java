@@ -0,0 +1,32 @@
+package com.ecommerce.coupons_management.dto;
+
+import java.util.List;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponImportReportDTO {
+
+  private long processed;
+  private long created;
+  private long failed;
+
+  /** The first failures, in record order; see {@code errors_truncated}. */
+  private List<RecordError> errors;
+
+  /** True when more records failed than are listed in {@code errors}. */
+  private boolean errors_truncated;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class RecordError {
+    /** 1-based line number for NDJSON, record number after the header for CSV. */
+    private long record;
+
+    private String error;
+  }
+}
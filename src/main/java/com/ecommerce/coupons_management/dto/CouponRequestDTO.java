@@ -10,7 +10,12 @@ public class CouponRequestDTO {
   private CouponType type;
   private Details details;
   private Boolean isActive;
+  private LocalDate startDate;
   private LocalDate expiryDate;
+  private Boolean exclusive;
+  private Integer priority;
+  private Integer maxRedemptions;
+  private Integer maxRedemptionsPerCustomer;
 
   @Data
   public static class Details {
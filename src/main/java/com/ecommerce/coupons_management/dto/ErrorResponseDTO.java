@@ -0,0 +1,15 @@
+package com.ecommerce.coupons_management.dto;
+
+import java.time.LocalDateTime;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorResponseDTO {
+  private LocalDateTime timestamp;
+  private int status;
+  private String error;
+  private String message;
+}
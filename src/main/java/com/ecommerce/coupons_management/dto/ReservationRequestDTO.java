@@ -0,0 +1,9 @@
+package com.ecommerce.coupons_management.dto;
+
+import lombok.Data;
+
+@Data
+public class ReservationRequestDTO {
+  /** Required when the coupon limits redemptions per customer. */
+  private String customerId;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.coupons_management.dto;
+
+import java.time.Instant;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationResponseDTO {
+
+  /** Confirm with this token at checkout, or release it; it expires at {@code expires_at}. */
+  private String token;
+
+  private Long coupon_id;
+  private Instant expires_at;
+}
@@ -1,7 +1,16 @@
 package com.ecommerce.coupons_management.enums;
 
+import java.util.Locale;
+
 public enum CouponType {
   CART_WISE,
   PRODUCT_WISE,
-  BXGY
+  BXGY;
+
+  private final String label = name().toLowerCase(Locale.ROOT);
+
+  /** Lower-case name used in responses and metric tags; computed once. */
+  public String label() {
+    return label;
+  }
 }
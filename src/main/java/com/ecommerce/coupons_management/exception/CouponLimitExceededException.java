@@ -0,0 +1,8 @@
+package com.ecommerce.coupons_management.exception;
+
+public class CouponLimitExceededException extends RuntimeException {
+
+  public CouponLimitExceededException(String message) {
+    super(message);
+  }
+}
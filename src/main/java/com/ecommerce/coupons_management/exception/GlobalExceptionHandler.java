@@ -1,9 +1,9 @@
 package com.ecommerce.coupons_management.exception;
 
+import com.ecommerce.coupons_management.dto.ErrorResponseDTO;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import org.springframework.http.*;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,51 +11,54 @@ import org.springframework.web.bind.annotation.*;
 public class GlobalExceptionHandler {
 
   @ExceptionHandler(CouponNotFoundException.class)
-  public ResponseEntity<Map<String, Object>> handleCouponNotFound(
-      CouponNotFoundException exception) {
-    Map<String, Object> response = new HashMap<>();
-    response.put("timestamp", LocalDateTime.now());
-    response.put("status", HttpStatus.NOT_FOUND.value());
-    response.put("error", "Coupon Not Found");
-    response.put("message", exception.getMessage());
-    return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+  public ResponseEntity<ErrorResponseDTO> handleCouponNotFound(CouponNotFoundException exception) {
+    return error(HttpStatus.NOT_FOUND, "Coupon Not Found", exception.getMessage());
+  }
+
+  @ExceptionHandler(CouponLimitExceededException.class)
+  public ResponseEntity<ErrorResponseDTO> handleCouponLimitExceeded(
+      CouponLimitExceededException exception) {
+    return error(HttpStatus.CONFLICT, "Coupon Limit Reached", exception.getMessage());
+  }
+
+  @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+  public ResponseEntity<ErrorResponseDTO> handleConcurrentUpdate(
+      ObjectOptimisticLockingFailureException exception) {
+    return error(
+        HttpStatus.CONFLICT, "Concurrent Update", "Coupon was changed by another request; retry");
   }
 
   @ExceptionHandler(IllegalArgumentException.class)
-  public ResponseEntity<Map<String, Object>> handleIllegalArgument(
+  public ResponseEntity<ErrorResponseDTO> handleIllegalArgument(
       IllegalArgumentException exception) {
-    Map<String, Object> response = new HashMap<>();
-    response.put("timestamp", LocalDateTime.now());
-    response.put("status", HttpStatus.BAD_REQUEST.value());
-    response.put("error", "Invalid Input");
-    response.put("message", exception.getMessage());
-    return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    return error(HttpStatus.BAD_REQUEST, "Invalid Input", exception.getMessage());
   }
 
   @ExceptionHandler(MethodArgumentNotValidException.class)
-  public ResponseEntity<Map<String, Object>> handleValidationErrors(
+  public ResponseEntity<ErrorResponseDTO> handleValidationErrors(
       MethodArgumentNotValidException exception) {
-    Map<String, Object> response = new HashMap<>();
-    response.put("timestamp", LocalDateTime.now());
-    response.put("status", HttpStatus.BAD_REQUEST.value());
-    response.put("error", "Validation Error");
-
     String message =
         exception.getBindingResult().getFieldErrors().stream()
             .map(error -> error.getField() + ": " + error.getDefaultMessage())
             .findFirst()
             .orElse(exception.getMessage());
-    response.put("message", message);
-    return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    return error(HttpStatus.BAD_REQUEST, "Validation Error", message);
   }
 
   @ExceptionHandler(Exception.class)
-  public ResponseEntity<Map<String, Object>> handleGeneralException(Exception exception) {
-    Map<String, Object> response = new HashMap<>();
-    response.put("timestamp", LocalDateTime.now());
-    response.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-    response.put("error", "Internal Server Error");
-    response.put("message", exception.getMessage());
-    return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+  public ResponseEntity<ErrorResponseDTO> handleGeneralException(Exception exception) {
+    return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", exception.getMessage());
+  }
+
+  private static ResponseEntity<ErrorResponseDTO> error(
+      HttpStatus status, String error, String message) {
+    ErrorResponseDTO body =
+        ErrorResponseDTO.builder()
+            .timestamp(LocalDateTime.now())
+            .status(status.value())
+            .error(error)
+            .message(message)
+            .build();
+    return new ResponseEntity<>(body, status);
   }
 }
@@ -0,0 +1,101 @@
+package com.ecommerce.coupons_management.metrics;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import io.micrometer.core.instrument.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the coupon evaluation pipeline.
+ *
+ * <ul>
+ *   <li>{@code coupons.evaluation.stage}: time per stage ({@code product_lookup}, {@code
+ *       coupon_lookup}, {@code bxgy_rules}, {@code discount}) of each operation, with percentile
+ *       histograms
+ *   <li>{@code coupons.evaluations}: coupons evaluated, per operation and coupon type
+ *   <li>{@code coupons.rejections}: coupons refused at apply time, per coupon type and reason
+ *   <li>{@code coupons.db.statements}: SQL statements run per HTTP request, per endpoint and the
+ *       coupon type the request evaluated ({@code mixed} for several, {@code none} for none)
+ * </ul>
+ *
+ * Meters are created once per tag combination and reused.
+ */
+@Component
+public class CouponMetrics {
+
+  public static final String APPLY = "apply";
+  public static final String APPLICABLE = "applicable";
+
+  public static final String PRODUCT_LOOKUP = "product_lookup";
+  public static final String COUPON_LOOKUP = "coupon_lookup";
+  public static final String BXGY_RULES = "bxgy_rules";
+  public static final String DISCOUNT = "discount";
+
+  public static final String INVALID_CODE = "invalid_code";
+  public static final String EXPIRED_OR_INACTIVE = "expired_or_inactive";
+  public static final String LIMIT_REACHED = "limit_reached";
+
+  private final MeterRegistry registry;
+  private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Map<String, DistributionSummary> statementSummaries = new ConcurrentHashMap<>();
+
+  public CouponMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  public Timer.Sample start() {
+    return Timer.start(registry);
+  }
+
+  /** Stops {@code sample} and records it as {@code stage} of {@code operation}. */
+  public void stop(Timer.Sample sample, String operation, String stage) {
+    Timer timer =
+        stageTimers.computeIfAbsent(
+            operation + '/' + stage,
+            key ->
+                Timer.builder("coupons.evaluation.stage")
+                    .description("Time spent in each stage of coupon evaluation")
+                    .tag("operation", operation)
+                    .tag("stage", stage)
+                    .publishPercentileHistogram()
+                    .register(registry));
+    sample.stop(timer);
+  }
+
+  public void evaluated(String operation, CouponType type) {
+    StatementCounter.couponType(type);
+    counter("coupons.evaluations", "operation", operation, "type", typeTag(type)).increment();
+  }
+
+  public void rejected(CouponType type, String reason) {
+    StatementCounter.couponType(type);
+    counter("coupons.rejections", "type", typeTag(type), "reason", reason).increment();
+  }
+
+  public void statements(String method, String uri, String type, long count) {
+    statementSummaries
+        .computeIfAbsent(
+            method + ' ' + uri + ' ' + type,
+            key ->
+                DistributionSummary.builder("coupons.db.statements")
+                    .description("SQL statements per HTTP request")
+                    .baseUnit("statements")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .tag("type", type)
+                    .register(registry))
+        .record(count);
+  }
+
+  private Counter counter(String name, String k1, String v1, String k2, String v2) {
+    return counters.computeIfAbsent(
+        name + '/' + v1 + '/' + v2,
+        key -> Counter.builder(name).tag(k1, v1).tag(k2, v2).register(registry));
+  }
+
+  static String typeTag(CouponType type) {
+    return type != null ? type.label() : "unknown";
+  }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.coupons_management.metrics;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.*;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records the number of SQL statements each API request runs as {@code coupons.db.statements}. The
+ * count is kept on the request and bound to the async thread that writes a streamed response
+ * ({@code StreamingResponseBody}, run by Spring MVC as a {@link Callable}), so those statements are
+ * counted too; such a request is recorded when it comes back through the filter on its async
+ * dispatch.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatementCountFilter extends OncePerRequestFilter {
+
+  private static final String COUNT_ATTRIBUTE = StatementCountFilter.class.getName() + ".count";
+
+  private final StatementCounter statementCounter;
+  private final CouponMetrics couponMetrics;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith("/api/");
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    StatementCounter.Count count = (StatementCounter.Count) request.getAttribute(COUNT_ATTRIBUTE);
+    if (count == null) {
+      count = statementCounter.begin();
+      request.setAttribute(COUNT_ATTRIBUTE, count);
+      WebAsyncUtils.getAsyncManager(request)
+          .registerCallableInterceptor(COUNT_ATTRIBUTE, new AsyncCount(count));
+    } else {
+      statementCounter.bind(count);
+    }
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      statementCounter.end();
+      if (!isAsyncStarted(request)) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        couponMetrics.statements(
+            request.getMethod(),
+            pattern != null ? pattern.toString() : "UNKNOWN",
+            count.type(),
+            count.statements());
+      }
+    }
+  }
+
+  /** Binds the count of a request to the async thread that runs its {@link Callable}. */
+  private class AsyncCount implements CallableProcessingInterceptor {
+
+    private final StatementCounter.Count count;
+
+    AsyncCount(StatementCounter.Count count) {
+      this.count = count;
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+      statementCounter.bind(count);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object result) {
+      statementCounter.end();
+    }
+  }
+}
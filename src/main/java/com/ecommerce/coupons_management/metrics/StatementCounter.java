@@ -0,0 +1,105 @@
+package com.ecommerce.coupons_management.metrics;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import java.util.Map;
+import java.util.concurrent.atomic.*;
+import java.util.function.Function;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares for a request. {@link #begin()} starts a {@link
+ * Count} and binds it to the current thread; work the request hands to other threads carries it
+ * along with {@link #bind} or {@link #propagate}, so every statement of the request lands in the
+ * same count. Registered with Hibernate as its statement inspector; statements are passed through
+ * unchanged.
+ */
+@Component
+public class StatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+  private static final ThreadLocal<Count> COUNT = new ThreadLocal<>();
+
+  /**
+   * Statements of one request, and the coupon type it evaluated: a type label, {@code mixed} if it
+   * evaluated several types, or {@code none}.
+   */
+  public static final class Count {
+
+    private static final String NONE = "none";
+    private static final String MIXED = "mixed";
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicReference<String> type = new AtomicReference<>(NONE);
+
+    public long statements() {
+      return statements.get();
+    }
+
+    public String type() {
+      return type.get();
+    }
+
+    void couponType(String label) {
+      type.accumulateAndGet(
+          label, (current, next) -> current.equals(NONE) || current.equals(next) ? next : MIXED);
+    }
+  }
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+  }
+
+  @Override
+  public String inspect(String sql) {
+    Count count = COUNT.get();
+    if (count != null) count.statements.incrementAndGet();
+    return sql;
+  }
+
+  /** Starts a count on the current thread and returns it. */
+  public Count begin() {
+    Count count = new Count();
+    COUNT.set(count);
+    return count;
+  }
+
+  /** Continues {@code count} on the current thread, e.g. on the thread of an async request. */
+  public void bind(Count count) {
+    COUNT.set(count);
+  }
+
+  /** Returns the statements counted on the current thread and stops counting there. */
+  public long end() {
+    Count count = COUNT.get();
+    COUNT.remove();
+    return count != null ? count.statements() : 0;
+  }
+
+  /** Notes that the current request evaluated a coupon of {@code type}. */
+  static void couponType(CouponType type) {
+    Count count = COUNT.get();
+    if (count != null) count.couponType(CouponMetrics.typeTag(type));
+  }
+
+  /**
+   * Returns {@code function} running with the count of the calling thread, for work handed to other
+   * threads; {@code function} itself when nothing is being counted.
+   */
+  public static <T, R> Function<T, R> propagate(Function<T, R> function) {
+    Count count = COUNT.get();
+    if (count == null) return function;
+    return value -> {
+      Count previous = COUNT.get();
+      COUNT.set(count);
+      try {
+        return function.apply(value);
+      } finally {
+        if (previous != null) COUNT.set(previous);
+        else COUNT.remove();
+      }
+    };
+  }
+}
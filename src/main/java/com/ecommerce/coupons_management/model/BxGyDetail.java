@@ -1,9 +1,20 @@
 package com.ecommerce.coupons_management.model;
 
+import com.ecommerce.coupons_management.service.CatalogChangeListener;
 import jakarta.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
+/**
+ * BXGY rule of a coupon. Buying {@code quantity} of any product in the buy set earns {@code
+ * quantity} of every product in the get set; the sets are stored in their own tables, so a rule
+ * grows with buy + get products rather than buy × get.
+ */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "bxgy_details")
 @Data
 @NoArgsConstructor
@@ -12,9 +23,27 @@ import lombok.*;
 public class BxGyDetail {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bxgy_details_seq")
+  @SequenceGenerator(
+      name = "bxgy_details_seq",
+      sequenceName = "bxgy_details_seq",
+      allocationSize = 50)
   private Long id;
 
+  @ElementCollection(fetch = FetchType.EAGER)
+  @CollectionTable(name = "bxgy_buy_products", joinColumns = @JoinColumn(name = "bxgy_detail_id"))
+  @Fetch(FetchMode.SUBSELECT)
+  @Builder.Default
+  private List<BxGyProduct> buyProducts = new ArrayList<>();
+
+  @ElementCollection(fetch = FetchType.EAGER)
+  @CollectionTable(name = "bxgy_get_products", joinColumns = @JoinColumn(name = "bxgy_detail_id"))
+  @Fetch(FetchMode.SUBSELECT)
+  @Builder.Default
+  private List<BxGyProduct> getProducts = new ArrayList<>();
+
+  // Legacy layout: one row per (buy product, get product) pair. Only read by
+  // BxGyDetailMigration, which folds such rows into the buy and get sets above.
   private Long buyProductId;
   private Integer buyQuantity;
 
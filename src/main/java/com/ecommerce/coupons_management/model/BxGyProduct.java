@@ -0,0 +1,15 @@
+package com.ecommerce.coupons_management.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/** One product of a BXGY buy set or get set, with the quantity the rule counts in. */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BxGyProduct {
+
+  private Long productId;
+  private Integer quantity;
+}
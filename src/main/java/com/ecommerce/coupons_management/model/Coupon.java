@@ -13,7 +13,8 @@ import lombok.*;
 @Builder
 public class Coupon {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupons_seq")
+  @SequenceGenerator(name = "coupons_seq", sequenceName = "coupons_seq", allocationSize = 50)
   private Long id;
 
   @Column(unique = true, nullable = false)
@@ -24,10 +25,40 @@ public class Coupon {
 
   private Double discount;
   private Boolean isActive;
+
+  /** First day the coupon can be used; null means it is live from creation. */
+  private LocalDate startDate;
+
+  /** Last day the coupon can be used. */
   private LocalDate expiryDate;
+
   private Double threshold;
 
   private Long productId;
 
   private Integer repetitionLimit;
+
+  /** An exclusive coupon cannot be stacked with any other coupon. */
+  private Boolean exclusive;
+
+  /** Stacked coupons are applied in descending priority. */
+  private Integer priority;
+
+  /** Total redemptions allowed across all customers; null means unlimited. */
+  private Integer maxRedemptions;
+
+  /** Redemptions allowed per customer; null means unlimited. */
+  private Integer maxRedemptionsPerCustomer;
+
+  /**
+   * Confirmed redemptions flushed so far. Only ever incremented by {@code
+   * CouponRepository#incrementRedemptionCount}, so saving a coupon never overwrites it.
+   */
+  @Column(updatable = false)
+  private Long redemptionCount;
+
+  /**
+   * Optimistic lock and ETag source. Bumped on every update, including redemption count flushes.
+   */
+  @Version private Long version;
 }
@@ -0,0 +1,24 @@
+package com.ecommerce.coupons_management.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * A block of coupon code counters reserved by one application instance. The generated id is the
+ * block number, so every reservation gets a range no other instance can receive.
+ */
+@Entity
+@Table(name = "coupon_code_blocks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CouponCodeBlock {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private LocalDateTime reservedAt;
+}
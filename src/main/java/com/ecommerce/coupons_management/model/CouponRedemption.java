@@ -0,0 +1,34 @@
+package com.ecommerce.coupons_management.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * A confirmed use of a coupon. Written only; per-customer limits are enforced on {@code
+ * coupon_customer_uses}.
+ */
+@Entity
+@Table(name = "coupon_redemptions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CouponRedemption {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupon_redemptions_seq")
+  @SequenceGenerator(
+      name = "coupon_redemptions_seq",
+      sequenceName = "coupon_redemptions_seq",
+      allocationSize = 50)
+  private Long id;
+
+  @Column(name = "coupon_id", nullable = false)
+  private Long couponId;
+
+  @Column(name = "customer_id")
+  private String customerId;
+
+  private LocalDateTime redeemedAt;
+}
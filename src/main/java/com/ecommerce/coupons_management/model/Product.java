@@ -1,9 +1,11 @@
 package com.ecommerce.coupons_management.model;
 
+import com.ecommerce.coupons_management.service.CatalogChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "products")
 @Data
 @NoArgsConstructor
@@ -1,6 +1,7 @@
 package com.ecommerce.coupons_management.repository;
 
 import com.ecommerce.coupons_management.model.BxGyDetail;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -10,4 +11,9 @@ public interface BxGyDetailRepository extends JpaRepository<BxGyDetail, Long> {
   void deleteByCouponId(Long couponId);
 
   List<BxGyDetail> findByCouponId(Long id);
+
+  List<BxGyDetail> findByCouponIdIn(Collection<Long> couponIds);
+
+  /** Rows still in the legacy one-row-per-(buy, get)-pair layout. */
+  List<BxGyDetail> findByBuyProductIdIsNotNull();
 }
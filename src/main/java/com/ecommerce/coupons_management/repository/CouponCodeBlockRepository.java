@@ -0,0 +1,8 @@
+package com.ecommerce.coupons_management.repository;
+
+import com.ecommerce.coupons_management.model.CouponCodeBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CouponCodeBlockRepository extends JpaRepository<CouponCodeBlock, Long> {}
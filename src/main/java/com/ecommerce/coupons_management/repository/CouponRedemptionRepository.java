@@ -0,0 +1,42 @@
+package com.ecommerce.coupons_management.repository;
+
+import com.ecommerce.coupons_management.model.CouponRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CouponRedemptionRepository extends JpaRepository<CouponRedemption, Long> {
+
+  /** Takes one use of a customer's limit; updates no row at the limit or for a new customer. */
+  @Modifying
+  @Query(
+      value =
+          "update coupon_customer_uses set uses = uses + 1"
+              + " where coupon_id = :couponId and customer_id = :customerId and uses < :limit",
+      nativeQuery = true)
+  int claimCustomerUse(
+      @Param("couponId") Long couponId,
+      @Param("customerId") String customerId,
+      @Param("limit") int limit);
+
+  /** Records the first use of a customer; inserts nothing if the customer already has a row. */
+  @Modifying
+  @Query(
+      value =
+          "insert into coupon_customer_uses (coupon_id, customer_id, uses)"
+              + " select :couponId, :customerId, 1 where not exists (select 1"
+              + " from coupon_customer_uses where coupon_id = :couponId and customer_id = :customerId)",
+      nativeQuery = true)
+  int insertCustomerUse(@Param("couponId") Long couponId, @Param("customerId") String customerId);
+
+  @Modifying
+  @Query(
+      value =
+          "update coupon_customer_uses set uses = uses - 1"
+              + " where coupon_id = :couponId and customer_id = :customerId and uses > 0",
+      nativeQuery = true)
+  int releaseCustomerUse(@Param("couponId") Long couponId, @Param("customerId") String customerId);
+}
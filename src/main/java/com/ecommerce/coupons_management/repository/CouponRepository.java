@@ -1,11 +1,61 @@
 package com.ecommerce.coupons_management.repository;
 
 import com.ecommerce.coupons_management.model.Coupon;
-import java.util.Optional;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
   Optional<Coupon> findByCouponCode(String couponCode);
+
+  List<Coupon> findByCouponCodeIn(Collection<String> couponCodes);
+
+  /** Keyset scroll over the whole catalog; runs no count query. */
+  Window<Coupon> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+  /** Reads the catalog through a cursor. Must be consumed and closed inside a transaction. */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<Coupon> streamAllByOrderByIdAsc();
+
+  @Query("select c.id from Coupon c where c.isActive = true and c.expiryDate < :today")
+  List<Long> findActiveExpiredIds(@Param("today") LocalDate today);
+
+  @Modifying
+  @Query(
+      "update Coupon c set c.isActive = false, c.version = c.version + 1"
+          + " where c.id in :ids and c.isActive = true")
+  int deactivate(@Param("ids") Collection<Long> ids);
+
+  /** Claims {@code count} uses for one instance; updates no row if that would pass the limit. */
+  @Modifying
+  @Query(
+      value =
+          "update coupons set claimed_count = coalesce(claimed_count, 0) + :count where id = :id"
+              + " and (max_redemptions is null"
+              + " or coalesce(claimed_count, 0) + :count <= max_redemptions)",
+      nativeQuery = true)
+  int claimUses(@Param("id") Long id, @Param("count") long count);
+
+  /** Gives back claimed uses an instance will not hand out. */
+  @Modifying
+  @Query(
+      value = "update coupons set claimed_count = claimed_count - :count where id = :id",
+      nativeQuery = true)
+  int returnUses(@Param("id") Long id, @Param("count") long count);
+
+  @Modifying
+  @Query(
+      "update Coupon c set c.redemptionCount = coalesce(c.redemptionCount, 0) + :delta,"
+          + " c.version = c.version + 1 where c.id = :id")
+  int incrementRedemptionCount(@Param("id") Long id, @Param("delta") long delta);
 }
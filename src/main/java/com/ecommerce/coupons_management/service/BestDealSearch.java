@@ -0,0 +1,110 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.Coupon;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Branch-and-bound search for the coupon combination with the largest total discount.
+ *
+ * <p>Options are explored in order of their standalone discount. A coupon never takes more off a
+ * stack than it takes off the full cart, so the standalone discounts of the coupons still to be
+ * added bound what a branch can reach, and branches that cannot beat the best stack found so far
+ * are pruned. Exclusive coupons are only tried on their own. The search stops at the time budget
+ * and returns the best stack found until then.
+ */
+@Component
+public class BestDealSearch {
+
+  private static final double EPSILON = 1e-9;
+
+  private final int maxCoupons;
+  private final long timeBudgetNanos;
+
+  public BestDealSearch(
+      @Value("${coupons.best-deal.max-coupons:3}") int maxCoupons,
+      @Value("${coupons.best-deal.time-budget-ms:50}") long timeBudgetMillis) {
+    this.maxCoupons = maxCoupons;
+    this.timeBudgetNanos = timeBudgetMillis * 1_000_000;
+  }
+
+  /** A coupon that applies to the cart on its own, with its standalone discount. */
+  public record Option(Coupon coupon, double discount) {}
+
+  /** The best stack found and whether every branch was explored or pruned within the budget. */
+  public record Result(List<Coupon> coupons, double discount, boolean complete) {}
+
+  /**
+   * @param options applicable coupons with their standalone discounts
+   * @param stackDiscount exact discount of a stack of coupons applied together
+   */
+  public Result search(List<Option> options, ToDoubleFunction<List<Coupon>> stackDiscount) {
+    List<Option> sorted = new ArrayList<>(options);
+    sorted.removeIf(option -> option.discount() <= 0);
+    sorted.sort(
+        Comparator.comparingDouble(Option::discount)
+            .reversed()
+            .thenComparing(option -> option.coupon().getId()));
+
+    Search search = new Search(sorted, stackDiscount, System.nanoTime() + timeBudgetNanos);
+    search.extend(0, new ArrayList<>(), 0.0);
+    return new Result(List.copyOf(search.best), search.bestDiscount, !search.timedOut);
+  }
+
+  private final class Search {
+    private final List<Option> options;
+    private final ToDoubleFunction<List<Coupon>> stackDiscount;
+    private final long deadline;
+
+    /** suffixBounds[i][k]: sum of the k largest standalone discounts among options[i..]. */
+    private final double[][] suffixBounds;
+
+    private List<Coupon> best = List.of();
+    private double bestDiscount;
+    private boolean timedOut;
+
+    Search(List<Option> options, ToDoubleFunction<List<Coupon>> stackDiscount, long deadline) {
+      this.options = options;
+      this.stackDiscount = stackDiscount;
+      this.deadline = deadline;
+      this.suffixBounds = new double[options.size() + 1][maxCoupons + 1];
+      for (int i = options.size() - 1; i >= 0; i--) {
+        for (int k = 1; k <= maxCoupons; k++) {
+          // options are sorted, so the k largest from i are option i plus the k - 1 largest after
+          suffixBounds[i][k] = options.get(i).discount() + suffixBounds[i + 1][k - 1];
+        }
+      }
+    }
+
+    void extend(int from, List<Coupon> stack, double discount) {
+      if (discount > bestDiscount + EPSILON) {
+        best = List.copyOf(stack);
+        bestDiscount = discount;
+      }
+      int room = maxCoupons - stack.size();
+      if (room == 0 || (!stack.isEmpty() && isExclusive(stack.get(0)))) return;
+
+      for (int i = from; i < options.size(); i++) {
+        if (System.nanoTime() > deadline) {
+          timedOut = true;
+          return;
+        }
+        if (discount + suffixBounds[i][room] <= bestDiscount + EPSILON) return;
+
+        Coupon coupon = options.get(i).coupon();
+        if (!stack.isEmpty() && isExclusive(coupon)) continue;
+
+        stack.add(coupon);
+        extend(i + 1, stack, stackDiscount.applyAsDouble(stack));
+        stack.remove(stack.size() - 1);
+        if (timedOut) return;
+      }
+    }
+  }
+
+  private static boolean isExclusive(Coupon coupon) {
+    return Boolean.TRUE.equals(coupon.getExclusive());
+  }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.CouponCodeBlock;
+import com.ecommerce.coupons_management.repository.CouponCodeBlockRepository;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates unique coupon codes from a counter, without a database round trip per code.
+ *
+ * <p>Counters come from blocks of {@value #BLOCK_SIZE} reserved through {@code coupon_code_blocks},
+ * so instances never share a counter. Each counter goes through a keyed Feistel permutation over 44
+ * bits, which keeps codes distinct while making them unpredictable, and is written as 9 Crockford
+ * Base32 characters. Legacy codes have 8 characters, so new codes cannot collide with them either.
+ */
+@Component
+public class BlockCouponCodeGenerator implements CouponCodeGenerator {
+
+  static final int BLOCK_BITS = 16;
+  static final long BLOCK_SIZE = 1L << BLOCK_BITS;
+
+  private static final int HALF_BITS = 22;
+  private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+  private static final long MAX_BLOCK = 1L << (2 * HALF_BITS - BLOCK_BITS);
+  private static final int CODE_LENGTH = 9;
+  private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+  private final CouponCodeBlockRepository couponCodeBlockRepository;
+  private final String prefix;
+  private final long[] roundKeys;
+
+  private long next;
+  private long blockEnd;
+
+  public BlockCouponCodeGenerator(
+      CouponCodeBlockRepository couponCodeBlockRepository,
+      @Value("${coupons.code.prefix:COUPON-}") String prefix,
+      @Value("${coupons.code.secret:coupons-management}") String secret) {
+    this.couponCodeBlockRepository = couponCodeBlockRepository;
+    this.prefix = prefix;
+    this.roundKeys = roundKeys(secret);
+  }
+
+  @Override
+  public synchronized String nextCode() {
+    if (next == blockEnd) {
+      reserveBlock();
+    }
+    return prefix + encode(permute(next++));
+  }
+
+  private void reserveBlock() {
+    long block =
+        couponCodeBlockRepository
+            .save(CouponCodeBlock.builder().reservedAt(LocalDateTime.now()).build())
+            .getId();
+    if (block >= MAX_BLOCK) {
+      throw new IllegalStateException("Coupon code space exhausted");
+    }
+    next = block << BLOCK_BITS;
+    blockEnd = next + BLOCK_SIZE;
+  }
+
+  /** Four-round Feistel network over two 22-bit halves: a bijection on 44-bit values. */
+  long permute(long value) {
+    long left = value >>> HALF_BITS;
+    long right = value & HALF_MASK;
+    for (long key : roundKeys) {
+      long mixed = left ^ round(right, key);
+      left = right;
+      right = mixed;
+    }
+    return (left << HALF_BITS) | right;
+  }
+
+  private static long round(long half, long key) {
+    long x = (half ^ key) * 0x9E3779B97F4A7C15L;
+    x ^= x >>> 29;
+    x *= 0xBF58476D1CE4E5B9L;
+    x ^= x >>> 32;
+    return x & HALF_MASK;
+  }
+
+  private static String encode(long value) {
+    char[] chars = new char[CODE_LENGTH];
+    for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+      chars[i] = ALPHABET[(int) (value & 31)];
+      value >>>= 5;
+    }
+    return new String(chars);
+  }
+
+  private static long[] roundKeys(String secret) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+      ByteBuffer buffer = ByteBuffer.wrap(digest);
+      return new long[] {buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong()};
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.BxGyDetail;
+import com.ecommerce.coupons_management.model.BxGyProduct;
+import com.ecommerce.coupons_management.repository.BxGyDetailRepository;
+import jakarta.transaction.Transactional;
+import java.util.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Folds BXGY rules stored in the legacy layout, one {@code bxgy_details} row per (buy product, get
+ * product) pair, into a single row per coupon with separate buy and get sets. Runs on startup,
+ * before the coupon index is built, and does nothing once every row is migrated.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BxGyDetailMigration implements ApplicationRunner {
+
+  private final BxGyDetailRepository bxGyDetailRepository;
+
+  @Override
+  @Transactional
+  public void run(ApplicationArguments args) {
+    migrateLegacyRows();
+  }
+
+  int migrateLegacyRows() {
+    List<BxGyDetail> legacyRows = bxGyDetailRepository.findByBuyProductIdIsNotNull();
+    if (legacyRows.isEmpty()) return 0;
+
+    Map<Long, List<BxGyDetail>> rowsByCoupon = new LinkedHashMap<>();
+    for (BxGyDetail row : legacyRows) {
+      rowsByCoupon.computeIfAbsent(row.getCoupon().getId(), id -> new ArrayList<>()).add(row);
+    }
+
+    List<BxGyDetail> compactRules = new ArrayList<>(rowsByCoupon.size());
+    for (List<BxGyDetail> rows : rowsByCoupon.values()) {
+      Set<BxGyProduct> buyProducts = new LinkedHashSet<>();
+      Set<BxGyProduct> getProducts = new LinkedHashSet<>();
+      for (BxGyDetail row : rows) {
+        buyProducts.add(new BxGyProduct(row.getBuyProductId(), row.getBuyQuantity()));
+        getProducts.add(new BxGyProduct(row.getGetProductId(), row.getGetQuantity()));
+      }
+      compactRules.add(
+          BxGyDetail.builder()
+              .coupon(rows.get(0).getCoupon())
+              .buyProducts(new ArrayList<>(buyProducts))
+              .getProducts(new ArrayList<>(getProducts))
+              .repetitionLimit(rows.get(0).getRepetitionLimit())
+              .build());
+    }
+
+    bxGyDetailRepository.deleteAll(legacyRows);
+    bxGyDetailRepository.saveAll(compactRules);
+    log.info(
+        "Migrated {} legacy BXGY rows into {} compact rules",
+        legacyRows.size(),
+        compactRules.size());
+    return compactRules.size();
+  }
+}
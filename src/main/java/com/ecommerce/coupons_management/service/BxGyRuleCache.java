@@ -0,0 +1,73 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.BxGyDetail;
+import com.ecommerce.coupons_management.repository.BxGyDetailRepository;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the BXGY rules of each coupon. Rules missing from the cache are loaded for all requested
+ * coupons with a single {@code findByCouponIdIn} query. Coupon writes must evict the affected
+ * coupon.
+ */
+@Component
+@RequiredArgsConstructor
+public class BxGyRuleCache {
+
+  private final BxGyDetailRepository bxGyDetailRepository;
+
+  private final Map<Long, List<BxGyDetail>> rulesByCoupon = new ConcurrentHashMap<>();
+
+  /** Bumped on every eviction so a load racing with a write does not cache stale rules. */
+  private final AtomicLong generation = new AtomicLong();
+
+  public List<BxGyDetail> getRules(Long couponId) {
+    return getRules(List.of(couponId)).getOrDefault(couponId, List.of());
+  }
+
+  /** Returns the rules of every requested coupon; coupons without rules map to an empty list. */
+  public Map<Long, List<BxGyDetail>> getRules(Collection<Long> couponIds) {
+    Map<Long, List<BxGyDetail>> rules = new HashMap<>();
+    List<Long> missing = new ArrayList<>();
+    for (Long couponId : couponIds) {
+      List<BxGyDetail> cached = rulesByCoupon.get(couponId);
+      if (cached != null) {
+        rules.put(couponId, cached);
+      } else {
+        missing.add(couponId);
+      }
+    }
+    if (missing.isEmpty()) return rules;
+
+    long loadedAt = generation.get();
+    Map<Long, List<BxGyDetail>> loaded = new HashMap<>();
+    for (Long couponId : missing) {
+      loaded.put(couponId, new ArrayList<>());
+    }
+    for (BxGyDetail detail : bxGyDetailRepository.findByCouponIdIn(missing)) {
+      loaded.get(detail.getCoupon().getId()).add(detail);
+    }
+
+    boolean current = generation.get() == loadedAt;
+    loaded.forEach(
+        (couponId, details) -> {
+          List<BxGyDetail> immutable = List.copyOf(details);
+          rules.put(couponId, immutable);
+          if (current) rulesByCoupon.put(couponId, immutable);
+        });
+    return rules;
+  }
+
+  public void evict(Long couponId) {
+    generation.incrementAndGet();
+    rulesByCoupon.remove(couponId);
+  }
+
+  public void clear() {
+    generation.incrementAndGet();
+    rulesByCoupon.clear();
+  }
+}
@@ -0,0 +1,338 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.dto.CartRequestDTO;
+import com.ecommerce.coupons_management.model.BxGyDetail;
+import com.ecommerce.coupons_management.model.BxGyProduct;
+import com.ecommerce.coupons_management.model.Coupon;
+import java.util.*;
+
+/**
+ * Primitive evaluation kernel for one cart. The cart is flattened once into parallel arrays, both
+ * per submitted line and per distinct product, and every coupon is evaluated against those arrays
+ * without boxing or per-line objects. Money is held as long cents: prices are rounded to cents on
+ * the way in, each percentage discount is rounded half-up to a cent where it is taken, and totals
+ * are exact sums of cents. Callers convert back to amounts only when building DTOs.
+ *
+ * <p>Instances are immutable and may be shared by threads evaluating different coupons.
+ */
+final class CartKernel {
+
+  /** Discount per submitted line after applying one coupon, and units added for free per line. */
+  record Applied(long[] lineDiscountCents, int[] lineFreeQuantities, long totalDiscountCents) {}
+
+  /** Discount per distinct product after applying a coupon stack, and units added for free. */
+  record Stacked(long[] discountCents, int[] freeQuantities) {
+    long totalDiscountCents() {
+      long total = 0;
+      for (long discount : discountCents) total += discount;
+      return total;
+    }
+  }
+
+  // cart lines as submitted
+  private final long[] lineProductIds;
+  private final int[] lineQuantities;
+  private final int[] lineProduct;
+
+  // distinct products, in order of first appearance
+  private final long[] productIds;
+  private final int[] quantities;
+  private final long[] priceCents;
+
+  // productIds sorted, with the position of each in productIds, for binary search
+  private final long[] sortedProductIds;
+  private final int[] sortedPositions;
+
+  private final long totalCents;
+
+  private CartKernel(
+      long[] lineProductIds,
+      int[] lineQuantities,
+      int[] lineProduct,
+      long[] productIds,
+      int[] quantities,
+      long[] priceCents) {
+    this.lineProductIds = lineProductIds;
+    this.lineQuantities = lineQuantities;
+    this.lineProduct = lineProduct;
+    this.productIds = productIds;
+    this.quantities = quantities;
+    this.priceCents = priceCents;
+
+    Integer[] order = new Integer[productIds.length];
+    for (int i = 0; i < order.length; i++) order[i] = i;
+    Arrays.sort(order, Comparator.comparingLong(i -> productIds[i]));
+    this.sortedProductIds = new long[order.length];
+    this.sortedPositions = new int[order.length];
+    for (int k = 0; k < order.length; k++) {
+      sortedProductIds[k] = productIds[order[k]];
+      sortedPositions[k] = order[k];
+    }
+
+    long total = 0;
+    for (int i = 0; i < lineProductIds.length; i++) {
+      total += priceCents[lineProduct[i]] * lineQuantities[i];
+    }
+    this.totalCents = total;
+  }
+
+  /** Flattens a cart whose products have all been priced. */
+  static CartKernel of(List<CartRequestDTO.CartItem> cartItems, Map<Long, Double> prices) {
+    int lines = cartItems.size();
+    long[] lineProductIds = new long[lines];
+    int[] lineQuantities = new int[lines];
+    int[] lineProduct = new int[lines];
+    long[] productIds = new long[lines];
+    int[] quantities = new int[lines];
+    long[] priceCents = new long[lines];
+
+    Map<Long, Integer> positions = new HashMap<>();
+    int products = 0;
+    for (int i = 0; i < lines; i++) {
+      CartRequestDTO.CartItem item = cartItems.get(i);
+      Integer position = positions.get(item.getProductId());
+      if (position == null) {
+        position = products++;
+        positions.put(item.getProductId(), position);
+        productIds[position] = item.getProductId();
+        priceCents[position] = cents(prices.get(item.getProductId()));
+      }
+      lineProductIds[i] = item.getProductId();
+      lineQuantities[i] = item.getQuantity();
+      lineProduct[i] = position;
+      quantities[position] += item.getQuantity();
+    }
+
+    return new CartKernel(
+        lineProductIds,
+        lineQuantities,
+        lineProduct,
+        Arrays.copyOf(productIds, products),
+        Arrays.copyOf(quantities, products),
+        Arrays.copyOf(priceCents, products));
+  }
+
+  static long cents(double amount) {
+    return Math.round(amount * 100);
+  }
+
+  static double amount(long cents) {
+    return cents / 100.0;
+  }
+
+  /** {@code percent}% of {@code cents}, rounded half-up to a cent. */
+  static long percentOf(long cents, double percent) {
+    return Math.round(cents * percent / 100.0);
+  }
+
+  long totalCents() {
+    return totalCents;
+  }
+
+  int lineCount() {
+    return lineProductIds.length;
+  }
+
+  long lineProductId(int line) {
+    return lineProductIds[line];
+  }
+
+  int lineQuantity(int line) {
+    return lineQuantities[line];
+  }
+
+  long linePriceCents(int line) {
+    return priceCents[lineProduct[line]];
+  }
+
+  int productCount() {
+    return productIds.length;
+  }
+
+  long productId(int product) {
+    return productIds[product];
+  }
+
+  int quantity(int product) {
+    return quantities[product];
+  }
+
+  long priceCents(int product) {
+    return priceCents[product];
+  }
+
+  /** Position of the product among the distinct products, or -1 when it is not in the cart. */
+  int indexOf(long productId) {
+    int k = Arrays.binarySearch(sortedProductIds, productId);
+    return k < 0 ? -1 : sortedPositions[k];
+  }
+
+  int quantityOf(long productId) {
+    int i = indexOf(productId);
+    return i < 0 ? 0 : quantities[i];
+  }
+
+  /** Whether the cart meets the coupon's conditions; activity and expiry are not checked here. */
+  boolean qualifies(Coupon coupon, List<BxGyDetail> bxgyDetails) {
+    return switch (coupon.getType()) {
+      case CART_WISE -> meetsThreshold(coupon, totalCents);
+      case PRODUCT_WISE -> coupon.getProductId() != null && indexOf(coupon.getProductId()) >= 0;
+      case BXGY -> {
+        for (BxGyDetail detail : bxgyDetails) {
+          for (BxGyProduct buy : detail.getBuyProducts()) {
+            if (quantityOf(buy.getProductId()) >= buy.getQuantity()) yield true;
+          }
+        }
+        yield false;
+      }
+    };
+  }
+
+  /** Discount the coupon gives on the whole cart on its own. */
+  long discountCents(Coupon coupon, List<BxGyDetail> bxgyDetails) {
+    switch (coupon.getType()) {
+      case CART_WISE -> {
+        return meetsThreshold(coupon, totalCents) ? percentOf(totalCents, coupon.getDiscount()) : 0;
+      }
+      case PRODUCT_WISE -> {
+        int i = coupon.getProductId() != null ? indexOf(coupon.getProductId()) : -1;
+        return i < 0 ? 0 : percentOf(priceCents[i] * quantities[i], coupon.getDiscount());
+      }
+      case BXGY -> {
+        long discount = 0;
+        for (BxGyDetail detail : bxgyDetails) {
+          int applications = bxgyApplications(detail);
+          if (applications == 0) continue;
+          for (BxGyProduct getProduct : detail.getGetProducts()) {
+            int i = indexOf(getProduct.getProductId());
+            if (i >= 0) discount += (long) applications * getProduct.getQuantity() * priceCents[i];
+          }
+        }
+        return discount;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Applies one coupon line by line. Cart-wise discounts are reported on the cart total only; free
+   * BXGY units go to the first line of the product.
+   */
+  Applied apply(Coupon coupon, List<BxGyDetail> bxgyDetails) {
+    int lines = lineProductIds.length;
+    long[] lineDiscounts = new long[lines];
+    int[] lineFree = new int[lines];
+    long total = 0;
+
+    switch (coupon.getType()) {
+      case CART_WISE -> total = percentOf(totalCents, coupon.getDiscount());
+
+      case PRODUCT_WISE -> {
+        if (coupon.getProductId() == null) break;
+        long productId = coupon.getProductId();
+        for (int line = 0; line < lines; line++) {
+          if (lineProductIds[line] != productId) continue;
+          lineDiscounts[line] =
+              percentOf(linePriceCents(line) * lineQuantities[line], coupon.getDiscount());
+          total += lineDiscounts[line];
+        }
+      }
+
+      case BXGY -> {
+        for (BxGyDetail detail : bxgyDetails) {
+          int applications = bxgyApplications(detail);
+          for (BxGyProduct getProduct : detail.getGetProducts()) {
+            int line = firstLineOf(getProduct.getProductId());
+            if (line < 0) continue;
+            int freeQty = applications * getProduct.getQuantity();
+            long discount = freeQty * linePriceCents(line);
+            lineDiscounts[line] += discount;
+            lineFree[line] += freeQty;
+            total += discount;
+          }
+        }
+      }
+    }
+    return new Applied(lineDiscounts, lineFree, total);
+  }
+
+  /**
+   * Applies a stack of coupons in the given order, each one on the amount the previous ones left
+   * per product.
+   */
+  Stacked applyStack(List<Coupon> coupons, Map<Long, List<BxGyDetail>> bxgyRules) {
+    int products = productIds.length;
+    long[] remaining = new long[products];
+    long[] discounts = new long[products];
+    int[] free = new int[products];
+    for (int i = 0; i < products; i++) remaining[i] = priceCents[i] * quantities[i];
+
+    for (Coupon coupon : coupons) {
+      switch (coupon.getType()) {
+        case CART_WISE -> {
+          long remainingTotal = 0;
+          for (long amount : remaining) remainingTotal += amount;
+          if (!meetsThreshold(coupon, remainingTotal)) break;
+          for (int i = 0; i < products; i++) {
+            long discount = percentOf(remaining[i], coupon.getDiscount());
+            remaining[i] -= discount;
+            discounts[i] += discount;
+          }
+        }
+
+        case PRODUCT_WISE -> {
+          int i = coupon.getProductId() != null ? indexOf(coupon.getProductId()) : -1;
+          if (i < 0) break;
+          long discount = percentOf(remaining[i], coupon.getDiscount());
+          remaining[i] -= discount;
+          discounts[i] += discount;
+        }
+
+        case BXGY -> {
+          for (BxGyDetail detail : bxgyRules.getOrDefault(coupon.getId(), List.of())) {
+            int applications = bxgyApplications(detail);
+            if (applications == 0) continue;
+
+            for (BxGyProduct getProduct : detail.getGetProducts()) {
+              int i = indexOf(getProduct.getProductId());
+              if (i < 0) continue;
+              int freeQty = applications * getProduct.getQuantity();
+              long discount = Math.min(freeQty * priceCents[i], remaining[i]);
+              remaining[i] -= discount;
+              discounts[i] += discount;
+              free[i] += freeQty;
+            }
+          }
+        }
+      }
+    }
+    return new Stacked(discounts, free);
+  }
+
+  /**
+   * Number of times a BXGY rule applies: every full {@code quantity} of a buy-set product in the
+   * cart earns one application, up to the rule's {@code repetitionLimit}.
+   */
+  int bxgyApplications(BxGyDetail detail) {
+    int applications = 0;
+    for (BxGyProduct buyProduct : detail.getBuyProducts()) {
+      applications += quantityOf(buyProduct.getProductId()) / buyProduct.getQuantity();
+    }
+    if (detail.getRepetitionLimit() != null) {
+      applications = Math.min(applications, detail.getRepetitionLimit());
+    }
+    return applications;
+  }
+
+  private int firstLineOf(long productId) {
+    for (int line = 0; line < lineProductIds.length; line++) {
+      if (lineProductIds[line] == productId) return line;
+    }
+    return -1;
+  }
+
+  /** A coupon without a threshold applies to every cart. */
+  private static boolean meetsThreshold(Coupon coupon, long amountCents) {
+    return coupon.getThreshold() == null || amountCents >= cents(coupon.getThreshold());
+  }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Reports writes to products and BXGY rules to {@link CatalogVersion}, whichever code path made
+ * them. Inside a transaction the report is made once, after commit, so a reader never caches data
+ * from before the write under the version that follows it.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogChangeListener {
+
+  private final CatalogVersion catalogVersion;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void changed(Object entity) {
+    boolean product = entity instanceof Product;
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      report(product);
+      return;
+    }
+
+    Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      pending = new Pending();
+      TransactionSynchronizationManager.bindResource(this, pending);
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    if (product) {
+      pending.products = true;
+    } else {
+      pending.rules = true;
+    }
+  }
+
+  private void report(boolean product) {
+    if (product) {
+      catalogVersion.productsChanged();
+    } else {
+      catalogVersion.catalogChanged();
+    }
+  }
+
+  private class Pending implements TransactionSynchronization {
+    boolean products;
+    boolean rules;
+
+    @Override
+    public void afterCommit() {
+      if (products) report(true);
+      if (rules) report(false);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(CatalogChangeListener.this);
+    }
+  }
+}
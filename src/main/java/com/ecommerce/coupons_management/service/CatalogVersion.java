@@ -0,0 +1,106 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.Coupon;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks the {@code @Version} of every coupon, a catalog version that moves on any coupon or BXGY
+ * rule write and a product version that moves on any price write, so conditional reads and cached
+ * evaluations can be validated from memory. Writers report changes after they commit.
+ *
+ * <p>ETags are strong and carry a per-process epoch, so a restart against a fresh database never
+ * revalidates a representation cached before it.
+ */
+@Component
+public class CatalogVersion {
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final AtomicLong catalog = new AtomicLong();
+  private final AtomicLong products = new AtomicLong();
+  private final Map<Long, Long> couponVersions = new ConcurrentHashMap<>();
+
+  /** Replaces every tracked version, e.g. after the catalog was reloaded. */
+  public void reset(Collection<Coupon> coupons) {
+    couponVersions.clear();
+    for (Coupon coupon : coupons) track(coupon);
+    catalog.incrementAndGet();
+  }
+
+  public void couponSaved(Coupon coupon) {
+    track(coupon);
+    catalog.incrementAndGet();
+  }
+
+  public void couponsSaved(Collection<Coupon> coupons) {
+    for (Coupon coupon : coupons) track(coupon);
+    catalog.incrementAndGet();
+  }
+
+  public void couponRemoved(Long couponId) {
+    couponVersions.remove(couponId);
+    catalog.incrementAndGet();
+  }
+
+  /** Records a write that bumped each coupon's version by one in the database. */
+  public void couponsBumped(Collection<Long> couponIds) {
+    for (Long couponId : couponIds) couponVersions.computeIfPresent(couponId, (id, v) -> v + 1);
+    catalog.incrementAndGet();
+  }
+
+  /** Records a write that is not tied to one coupon's version, such as a BXGY rule change. */
+  public void catalogChanged() {
+    catalog.incrementAndGet();
+  }
+
+  public void productsChanged() {
+    products.incrementAndGet();
+  }
+
+  public long catalog() {
+    return catalog.get();
+  }
+
+  public long products() {
+    return products.get();
+  }
+
+  /** Catches up with a version seen on a read, in case a write was reported out of order. */
+  public void couponRead(Coupon coupon) {
+    track(coupon);
+  }
+
+  /** Current version of the coupon, or null when the coupon is not tracked. */
+  public Long couponVersion(Long couponId) {
+    return couponVersions.get(couponId);
+  }
+
+  /** ETag of the coupon's current representation, or null when the coupon is not tracked. */
+  public String couponETag(Long couponId) {
+    Long version = couponVersions.get(couponId);
+    return version != null ? couponETag(couponId, version) : null;
+  }
+
+  /** ETag of the given coupon as read. */
+  public String couponETag(Coupon coupon) {
+    return couponETag(coupon.getId(), coupon.getVersion() != null ? coupon.getVersion() : 0);
+  }
+
+  /** ETag of any listing of the catalog; changes whenever a coupon is written. */
+  public String catalogETag() {
+    return "\"" + epoch + "-catalog-" + catalog.get() + "\"";
+  }
+
+  private String couponETag(Long couponId, long version) {
+    return "\"" + epoch + "-" + couponId + "-" + version + "\"";
+  }
+
+  /** Versions only grow, so a late report never replaces a newer one. */
+  private void track(Coupon coupon) {
+    if (coupon.getId() == null) return;
+    couponVersions.merge(
+        coupon.getId(), coupon.getVersion() != null ? coupon.getVersion() : 0, Math::max);
+  }
+}
@@ -0,0 +1,214 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.BxGyDetail;
+import com.ecommerce.coupons_management.model.BxGyProduct;
+import com.ecommerce.coupons_management.model.Coupon;
+import com.ecommerce.coupons_management.repository.CouponRepository;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves coupons into and out of the {@link CouponIndex} when they start or expire, so evaluation
+ * only ever sees live coupons.
+ *
+ * <p>The next transition of every coupon (the start of its {@code startDate}, or the day after its
+ * {@code expiryDate}) is kept in a priority queue ordered by instant, and a single task is armed on
+ * the {@link TaskScheduler} for the earliest one. When it fires, every due coupon is read again and
+ * indexed or unindexed by its current state, so a transition made stale by a later update or delete
+ * does no harm. Expired coupons that are still active are then deactivated in the database in one
+ * batch.
+ */
+@Slf4j
+@Component
+public class CouponActivationScheduler {
+
+  private record Transition(Instant at, Long couponId) {}
+
+  private final CouponRepository couponRepository;
+  private final BxGyRuleCache bxGyRuleCache;
+  private final CouponIndex couponIndex;
+  private final CouponBatchWriter couponBatchWriter;
+  private final CatalogVersion catalogVersion;
+  private final TaskScheduler taskScheduler;
+  private final Clock clock;
+
+  private final PriorityQueue<Transition> transitions =
+      new PriorityQueue<>(Comparator.comparing(Transition::at));
+
+  private ScheduledFuture<?> wakeup;
+  private Instant wakeupAt;
+
+  @Autowired
+  public CouponActivationScheduler(
+      CouponRepository couponRepository,
+      BxGyRuleCache bxGyRuleCache,
+      CouponIndex couponIndex,
+      CouponBatchWriter couponBatchWriter,
+      CatalogVersion catalogVersion,
+      TaskScheduler taskScheduler) {
+    this(
+        couponRepository,
+        bxGyRuleCache,
+        couponIndex,
+        couponBatchWriter,
+        catalogVersion,
+        taskScheduler,
+        Clock.systemDefaultZone());
+  }
+
+  CouponActivationScheduler(
+      CouponRepository couponRepository,
+      BxGyRuleCache bxGyRuleCache,
+      CouponIndex couponIndex,
+      CouponBatchWriter couponBatchWriter,
+      CatalogVersion catalogVersion,
+      TaskScheduler taskScheduler,
+      Clock clock) {
+    this.couponRepository = couponRepository;
+    this.bxGyRuleCache = bxGyRuleCache;
+    this.couponIndex = couponIndex;
+    this.couponBatchWriter = couponBatchWriter;
+    this.catalogVersion = catalogVersion;
+    this.taskScheduler = taskScheduler;
+    this.clock = clock;
+  }
+
+  /** Whether the coupon is active and {@code today} lies between its start and expiry dates. */
+  public static boolean isLive(Coupon coupon, LocalDate today) {
+    return Boolean.TRUE.equals(coupon.getIsActive())
+        && (coupon.getStartDate() == null || !coupon.getStartDate().isAfter(today))
+        && (coupon.getExpiryDate() == null || !coupon.getExpiryDate().isBefore(today));
+  }
+
+  /** Replaces every pending transition with those of the given catalog. */
+  public void reset(Collection<Coupon> coupons) {
+    synchronized (this) {
+      transitions.clear();
+    }
+    schedule(coupons);
+  }
+
+  /** Schedules the next transition of each coupon; call after every write to a coupon. */
+  public void schedule(Collection<Coupon> coupons) {
+    LocalDate today = LocalDate.now(clock);
+    synchronized (this) {
+      for (Coupon coupon : coupons) {
+        Instant next = nextTransition(coupon, today);
+        if (next != null) transitions.add(new Transition(next, coupon.getId()));
+      }
+      arm();
+    }
+  }
+
+  /**
+   * Instant the coupon next enters or leaves the live set, or null when it never will again. A
+   * coupon that has expired but is still active is due now, to be deactivated.
+   */
+  private Instant nextTransition(Coupon coupon, LocalDate today) {
+    if (coupon.getId() == null || !Boolean.TRUE.equals(coupon.getIsActive())) return null;
+    ZoneId zone = clock.getZone();
+    if (coupon.getStartDate() != null && coupon.getStartDate().isAfter(today)) {
+      return coupon.getStartDate().atStartOfDay(zone).toInstant();
+    }
+    if (coupon.getExpiryDate() == null) return null;
+    if (coupon.getExpiryDate().isBefore(today)) return clock.instant();
+    return coupon.getExpiryDate().plusDays(1).atStartOfDay(zone).toInstant();
+  }
+
+  /** Arms the wakeup for the earliest transition, unless one is already armed at or before it. */
+  private void arm() {
+    Transition next = transitions.peek();
+    if (next == null || (wakeup != null && !wakeupAt.isAfter(next.at()))) return;
+    if (wakeup != null) wakeup.cancel(false);
+    wakeupAt = next.at();
+    wakeup = taskScheduler.schedule(this::fire, wakeupAt);
+  }
+
+  void fire() {
+    Set<Long> due = new HashSet<>();
+    synchronized (this) {
+      wakeup = null;
+      Instant now = clock.instant();
+      while (!transitions.isEmpty() && !transitions.peek().at().isAfter(now)) {
+        due.add(transitions.poll().couponId());
+      }
+    }
+    try {
+      if (!due.isEmpty()) apply(due);
+    } catch (RuntimeException e) {
+      log.error("Failed to apply {} coupon transitions, will retry", due.size(), e);
+      synchronized (this) {
+        Instant retry = clock.instant().plusSeconds(10);
+        for (Long couponId : due) transitions.add(new Transition(retry, couponId));
+      }
+    } finally {
+      synchronized (this) {
+        arm();
+      }
+    }
+  }
+
+  /** Indexes or unindexes the coupons by their current state and deactivates expired ones. */
+  private void apply(Set<Long> couponIds) {
+    LocalDate today = LocalDate.now(clock);
+    List<Coupon> live = new ArrayList<>();
+    List<Coupon> upcoming = new ArrayList<>();
+    List<Long> bxgyIds = new ArrayList<>();
+    Set<Long> unindexed = new HashSet<>(couponIds);
+    for (Coupon coupon : couponRepository.findAllById(couponIds)) {
+      if (isLive(coupon, today)) {
+        live.add(coupon);
+        unindexed.remove(coupon.getId());
+        if (coupon.getType() == CouponType.BXGY) bxgyIds.add(coupon.getId());
+      } else if (coupon.getStartDate() != null && coupon.getStartDate().isAfter(today)) {
+        upcoming.add(coupon);
+      }
+    }
+
+    Map<Long, List<Long>> buyProductIds = new HashMap<>();
+    if (!bxgyIds.isEmpty()) {
+      bxGyRuleCache
+          .getRules(bxgyIds)
+          .forEach((couponId, rules) -> buyProductIds.put(couponId, buyProductIdsOf(rules)));
+    }
+    unindexed.forEach(couponIndex::remove);
+    couponIndex.putAll(live, buyProductIds);
+    catalogVersion.catalogChanged();
+    int deactivated = deactivateExpired(today);
+
+    // coupons found expired here are deactivated above and have no further transition
+    schedule(live);
+    schedule(upcoming);
+    log.info(
+        "Applied {} coupon transitions: {} live, {} deactivated",
+        couponIds.size(),
+        live.size(),
+        deactivated);
+  }
+
+  /** Deactivates every coupon that expired before {@code today} but is still marked active. */
+  int deactivateExpired(LocalDate today) {
+    List<Long> expired = couponRepository.findActiveExpiredIds(today);
+    if (expired.isEmpty()) return 0;
+    couponBatchWriter.deactivate(expired);
+    expired.forEach(couponIndex::remove);
+    catalogVersion.couponsBumped(expired);
+    return expired.size();
+  }
+
+  private static List<Long> buyProductIdsOf(List<BxGyDetail> rules) {
+    List<Long> buyProductIds = new ArrayList<>();
+    for (BxGyDetail rule : rules) {
+      for (BxGyProduct buyProduct : rule.getBuyProducts()) {
+        buyProductIds.add(buyProduct.getProductId());
+      }
+    }
+    return buyProductIds;
+  }
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the results of a batch apply as NDJSON, one line per (cart, coupon) pair in request order.
+ * Pairs are priced in chunks, each with its own bulk lookups, and every chunk is flushed as soon as
+ * it is done so the caller can start consuming results before the whole batch is priced.
+ */
+@Component
+public class CouponBatchApplier {
+
+  static final int CHUNK_SIZE = 500;
+  static final int MAX_BATCH_SIZE = 10_000;
+
+  private final CouponService couponService;
+  private final ObjectWriter writer;
+
+  public CouponBatchApplier(CouponService couponService, ObjectMapper objectMapper) {
+    this.couponService = couponService;
+    this.writer =
+        objectMapper
+            .writerFor(BatchApplyResultDTO.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("");
+  }
+
+  /** Rejects batches too large to price in one request, before any result is written. */
+  public void checkBatchSize(List<BatchApplyRequestDTO> requests) {
+    if (requests == null || requests.isEmpty()) {
+      throw new IllegalArgumentException("Batch cannot be empty");
+    }
+    if (requests.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException("Batch cannot exceed " + MAX_BATCH_SIZE + " carts");
+    }
+  }
+
+  /** Writes one result line per request and returns the number of pairs that failed. */
+  public long apply(List<BatchApplyRequestDTO> requests, OutputStream out) throws IOException {
+    long failed = 0;
+    try (JsonGenerator generator =
+        writer.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      for (int start = 0; start < requests.size(); start += CHUNK_SIZE) {
+        List<BatchApplyRequestDTO> chunk =
+            requests.subList(start, Math.min(start + CHUNK_SIZE, requests.size()));
+        for (BatchApplyResultDTO result : couponService.applyCoupons(chunk, start)) {
+          if (result.getError() != null) failed++;
+          writer.writeValue(generator, result);
+          generator.writeRaw('\n');
+        }
+        generator.flush();
+      }
+    }
+    return failed;
+  }
+}
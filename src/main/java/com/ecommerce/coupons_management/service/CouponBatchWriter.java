@@ -0,0 +1,88 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.BxGyDetail;
+import com.ecommerce.coupons_management.model.Coupon;
+import com.ecommerce.coupons_management.model.CouponRedemption;
+import com.ecommerce.coupons_management.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes batches of coupon data: chunks of new coupons for bulk creation, buffered redemptions, the
+ * deactivation of expired coupons and the redemption limit claims of {@link
+ * CouponRedemptionService}. Ids come from pooled sequences, so Hibernate can group the inserts into
+ * JDBC batches ({@code hibernate.jdbc.batch_size}) when the batch is flushed.
+ */
+@Component
+@RequiredArgsConstructor
+public class CouponBatchWriter {
+
+  /** Ids per {@code UPDATE ... WHERE id IN (...)} when deactivating coupons. */
+  private static final int DEACTIVATE_CHUNK_SIZE = 1000;
+
+  private final CouponRepository couponRepository;
+  private final BxGyDetailRepository bxGyDetailRepository;
+  private final CouponRedemptionRepository couponRedemptionRepository;
+  private final EntityManager entityManager;
+
+  /** Inserts the coupons and their BXGY rules in one transaction and detaches them afterwards. */
+  @Transactional
+  public void insert(List<Coupon> coupons, List<BxGyDetail> bxgyDetails) {
+    couponRepository.saveAll(coupons);
+    bxGyDetailRepository.saveAll(bxgyDetails);
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  /** Deactivates the coupons in one transaction, one {@code UPDATE} per chunk of ids. */
+  @Transactional
+  public void deactivate(List<Long> couponIds) {
+    for (int start = 0; start < couponIds.size(); start += DEACTIVATE_CHUNK_SIZE) {
+      couponRepository.deactivate(
+          couponIds.subList(start, Math.min(start + DEACTIVATE_CHUNK_SIZE, couponIds.size())));
+    }
+  }
+
+  /** Adds the redemption counts per coupon and inserts the redemption rows in one transaction. */
+  @Transactional
+  public void recordRedemptions(
+      Map<Long, Long> countsByCoupon, List<CouponRedemption> redemptions) {
+    countsByCoupon.forEach(couponRepository::incrementRedemptionCount);
+    couponRedemptionRepository.saveAll(redemptions);
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  /** Claims {@code count} uses of the coupon; false if that would pass its maxRedemptions. */
+  @Transactional
+  public boolean claimUses(Long couponId, long count) {
+    return couponRepository.claimUses(couponId, count) > 0;
+  }
+
+  /** Gives back claimed uses per coupon that were never handed out. */
+  @Transactional
+  public void returnUses(Map<Long, Long> countsByCoupon) {
+    countsByCoupon.forEach(couponRepository::returnUses);
+  }
+
+  /**
+   * Takes one use of the customer's limit; false if the customer has reached it. A concurrent first
+   * use by the same customer fails the insert on the primary key and is reported as {@link
+   * DataIntegrityViolationException}, after which the claim can be retried.
+   */
+  @Transactional
+  public boolean claimCustomerUse(Long couponId, String customerId, int limit) {
+    if (couponRedemptionRepository.claimCustomerUse(couponId, customerId, limit) > 0) return true;
+    return limit > 0 && couponRedemptionRepository.insertCustomerUse(couponId, customerId) > 0;
+  }
+
+  @Transactional
+  public void releaseCustomerUse(Long couponId, String customerId) {
+    couponRedemptionRepository.releaseCustomerUse(couponId, customerId);
+  }
+}
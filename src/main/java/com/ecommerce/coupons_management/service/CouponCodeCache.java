@@ -0,0 +1,177 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.Coupon;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Front for coupon code lookups, so codes that do not exist are refused without a query.
+ *
+ * <ul>
+ *   <li>A Bloom filter over every coupon code, loaded with the catalog and added to on every
+ *       create. Codes it has never seen are refused outright. Until the catalog is loaded every
+ *       code is let through.
+ *   <li>A negative cache of codes the database did not find, which also takes the codes of deleted
+ *       coupons, since the filter cannot forget them.
+ *   <li>A near-cache of coupons by code. An entry is used only while its {@code @Version} is the
+ *       one {@link CatalogVersion} tracks, so any write to the coupon sends the next lookup back to
+ *       the database.
+ * </ul>
+ *
+ * The filter is sized for {@code coupons.codes.expected} codes (default 1,000,000, or twice the
+ * catalog when that is larger) at a false-positive rate of {@code
+ * coupons.codes.false-positive-rate} (default 0.01). The caches hold {@code
+ * coupons.codes.cache-size} entries each (default 10000) for {@code
+ * coupons.codes.cache-ttl-seconds} (default 300) and are metered as {@code cache=coupons.codes} and
+ * {@code cache=coupons.codes.missing}; codes refused by the filter are counted by {@code
+ * coupons.codes.filtered}.
+ */
+@Slf4j
+@Component
+public class CouponCodeCache {
+
+  private final CatalogVersion catalogVersion;
+  private final long expectedCodes;
+  private final double falsePositiveRate;
+  private final Cache<String, Coupon> couponsByCode;
+  private final Cache<String, Boolean> missingCodes;
+  private final Counter filtered;
+
+  private volatile BloomFilter codes;
+  private volatile long capacity;
+  private final AtomicLong codeCount = new AtomicLong();
+
+  /** Codes created while a rebuild reads the catalog, which its snapshot may not include. */
+  private Set<String> createdDuringRebuild;
+
+  public CouponCodeCache(
+      CatalogVersion catalogVersion,
+      @Value("${coupons.codes.expected:1000000}") long expectedCodes,
+      @Value("${coupons.codes.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${coupons.codes.cache-size:10000}") long cacheSize,
+      @Value("${coupons.codes.cache-ttl-seconds:300}") long cacheTtlSeconds,
+      MeterRegistry meterRegistry) {
+    this.catalogVersion = catalogVersion;
+    this.expectedCodes = expectedCodes;
+    this.falsePositiveRate = falsePositiveRate;
+    this.couponsByCode = build(cacheSize, cacheTtlSeconds);
+    this.missingCodes = build(cacheSize, cacheTtlSeconds);
+    CaffeineCacheMetrics.monitor(meterRegistry, couponsByCode, "coupons.codes");
+    CaffeineCacheMetrics.monitor(meterRegistry, missingCodes, "coupons.codes.missing");
+    this.filtered =
+        Counter.builder("coupons.codes.filtered")
+            .description("Coupon codes refused by the Bloom filter without a query")
+            .register(meterRegistry);
+  }
+
+  private static <V> Cache<String, V> build(long size, long ttlSeconds) {
+    return Caffeine.newBuilder()
+        .maximumSize(size)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .recordStats()
+        .build();
+  }
+
+  /** Starts a rebuild; must be called before the catalog passed to {@link #rebuild} is read. */
+  public synchronized void startRebuild() {
+    createdDuringRebuild = new HashSet<>();
+  }
+
+  /** Replaces the filter with one over the given catalog and drops both caches. */
+  public void rebuild(Collection<Coupon> coupons) {
+    long size = Math.max(expectedCodes, 2L * coupons.size());
+    BloomFilter filter = new BloomFilter(size, falsePositiveRate);
+    for (Coupon coupon : coupons) {
+      if (coupon.getCouponCode() != null) filter.add(coupon.getCouponCode());
+    }
+    synchronized (this) {
+      if (createdDuringRebuild != null) createdDuringRebuild.forEach(filter::add);
+      createdDuringRebuild = null;
+      codeCount.set(coupons.size());
+      capacity = size;
+      codes = filter;
+    }
+    clear();
+  }
+
+  /** Whether the code may exist; false only for codes that certainly do not. */
+  public boolean mightExist(String couponCode) {
+    if (couponCode == null || missingCodes.getIfPresent(couponCode) != null) return false;
+    BloomFilter filter = codes;
+    if (filter == null || filter.mightContain(couponCode)) return true;
+    filtered.increment();
+    return false;
+  }
+
+  /** The cached coupon with this code, or null when it is not cached or has since changed. */
+  public Coupon get(String couponCode) {
+    Coupon coupon = couponsByCode.getIfPresent(couponCode);
+    if (coupon == null) return null;
+    Long version = catalogVersion.couponVersion(coupon.getId());
+    if (version == null || version != Objects.requireNonNullElse(coupon.getVersion(), 0L)) {
+      couponsByCode.invalidate(couponCode);
+      return null;
+    }
+    return coupon;
+  }
+
+  /** Records a coupon read from the database by its code. */
+  public void found(Coupon coupon) {
+    catalogVersion.couponRead(coupon);
+    couponsByCode.put(coupon.getCouponCode(), coupon);
+  }
+
+  /** Records a code the database did not find. */
+  public void missing(String couponCode) {
+    if (couponCode != null) missingCodes.put(couponCode, Boolean.TRUE);
+  }
+
+  /** Makes newly created codes visible; must run before the codes are handed out. */
+  public void codesCreated(Collection<Coupon> coupons) {
+    BloomFilter filter;
+    synchronized (this) {
+      filter = codes;
+      for (Coupon coupon : coupons) {
+        if (coupon.getCouponCode() == null) continue;
+        if (filter != null) filter.add(coupon.getCouponCode());
+        if (createdDuringRebuild != null) createdDuringRebuild.add(coupon.getCouponCode());
+      }
+    }
+    for (Coupon coupon : coupons) {
+      if (coupon.getCouponCode() != null) missingCodes.invalidate(coupon.getCouponCode());
+    }
+
+    long before = codeCount.getAndAdd(coupons.size());
+    if (filter != null && before <= capacity && before + coupons.size() > capacity) {
+      log.warn(
+          "Coupon codes exceed the Bloom filter capacity of {}; false positives will rise until"
+              + " restart. Raise coupons.codes.expected",
+          capacity);
+    }
+  }
+
+  public void couponUpdated(Coupon coupon) {
+    if (coupon.getCouponCode() != null) couponsByCode.invalidate(coupon.getCouponCode());
+  }
+
+  public void couponRemoved(Coupon coupon) {
+    if (coupon.getCouponCode() == null) return;
+    couponsByCode.invalidate(coupon.getCouponCode());
+    missing(coupon.getCouponCode());
+  }
+
+  /** Drops both caches; the filter is kept. */
+  public void clear() {
+    couponsByCode.invalidateAll();
+    missingCodes.invalidateAll();
+  }
+}
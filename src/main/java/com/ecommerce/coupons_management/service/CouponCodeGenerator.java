@@ -0,0 +1,7 @@
+package com.ecommerce.coupons_management.service;
+
+/** Issues coupon codes. Implementations must never return the same code twice. */
+public interface CouponCodeGenerator {
+
+  String nextCode();
+}
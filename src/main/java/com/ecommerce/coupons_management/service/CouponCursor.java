@@ -0,0 +1,63 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.model.Coupon;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import org.springframework.data.domain.*;
+
+/**
+ * Opaque cursor for keyset listing. It holds the sort key of the last coupon returned, so the next
+ * slice is found with an index seek on {@code id} (or {@code expiryDate, id}) rather than an
+ * offset.
+ */
+record CouponCursor(String sortBy, LocalDate expiryDate, Long id) {
+
+  static final String BY_ID = "id";
+  static final String BY_EXPIRY_DATE = "expiryDate";
+
+  static CouponCursor after(Coupon coupon, String sortBy) {
+    return new CouponCursor(sortBy, coupon.getExpiryDate(), coupon.getId());
+  }
+
+  static Sort sort(String sortBy) {
+    return switch (sortBy) {
+      case BY_ID -> Sort.by(BY_ID).ascending();
+      case BY_EXPIRY_DATE -> Sort.by(BY_EXPIRY_DATE, BY_ID).ascending();
+      default -> throw new IllegalArgumentException("Cursor listing cannot sort by: " + sortBy);
+    };
+  }
+
+  ScrollPosition position() {
+    Map<String, Object> keys = new LinkedHashMap<>();
+    if (BY_EXPIRY_DATE.equals(sortBy)) {
+      keys.put(BY_EXPIRY_DATE, expiryDate);
+    }
+    keys.put(BY_ID, id);
+    return ScrollPosition.forward(keys);
+  }
+
+  String encode() {
+    String raw = BY_ID.equals(sortBy) ? sortBy + "|" + id : sortBy + "|" + expiryDate + "|" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static CouponCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split("\\|");
+      if (parts.length == 2 && BY_ID.equals(parts[0])) {
+        return new CouponCursor(BY_ID, null, Long.valueOf(parts[1]));
+      }
+      if (parts.length == 3 && BY_EXPIRY_DATE.equals(parts[0])) {
+        return new CouponCursor(BY_EXPIRY_DATE, LocalDate.parse(parts[1]), Long.valueOf(parts[2]));
+      }
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      // fall through to the error below
+    }
+    throw new IllegalArgumentException("Invalid cursor: " + cursor);
+  }
+}
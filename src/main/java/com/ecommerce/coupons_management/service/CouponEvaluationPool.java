@@ -0,0 +1,106 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.metrics.StatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evaluates large candidate sets in parallel on a dedicated {@link ForkJoinPool}.
+ *
+ * <p>Sets smaller than {@code coupons.evaluation.parallel-threshold} (default 2000) are evaluated
+ * on the calling thread, where splitting would cost more than it saves. Batches of (cart, coupon)
+ * pairs, each of which prices a whole cart, use {@code coupons.evaluation.batch-parallel-threshold}
+ * (default 32) instead. Larger sets are split across at most {@code coupons.evaluation.parallelism}
+ * workers; the pool is separate from the common pool and from the request threads, so a large cart
+ * cannot take more than those workers from other requests. Results keep the order of the candidates
+ * either way. The pool is monitored as {@code executor.*} meters tagged {@code
+ * name=coupons.evaluation}.
+ */
+@Component
+public class CouponEvaluationPool {
+
+  private final int parallelThreshold;
+  private final int batchParallelThreshold;
+  private final ForkJoinPool pool;
+
+  public CouponEvaluationPool(
+      @Value("${coupons.evaluation.parallel-threshold:2000}") int parallelThreshold,
+      @Value("${coupons.evaluation.batch-parallel-threshold:32}") int batchParallelThreshold,
+      @Value("${coupons.evaluation.parallelism:0}") int parallelism,
+      MeterRegistry meterRegistry) {
+    this.parallelThreshold = parallelThreshold;
+    this.batchParallelThreshold = batchParallelThreshold;
+    this.pool =
+        new ForkJoinPool(
+            parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+            pool -> {
+              ForkJoinWorkerThread worker =
+                  ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+              worker.setName("coupon-eval-" + worker.getPoolIndex());
+              return worker;
+            },
+            null,
+            false);
+    ExecutorServiceMetrics.monitor(meterRegistry, pool, "coupons.evaluation");
+  }
+
+  /**
+   * Applies {@code evaluator} to every candidate and returns the non-null results in candidate
+   * order. {@code evaluator} may run on several threads at once.
+   */
+  public <T, R> List<R> evaluate(List<T> candidates, Function<? super T, ? extends R> evaluator) {
+    return evaluate(candidates, evaluator, parallelThreshold);
+  }
+
+  /** Like {@link #evaluate}, for candidates that are each a (cart, coupon) pair of a batch. */
+  public <T, R> List<R> evaluateBatch(
+      List<T> candidates, Function<? super T, ? extends R> evaluator) {
+    return evaluate(candidates, evaluator, batchParallelThreshold);
+  }
+
+  private <T, R> List<R> evaluate(
+      List<T> candidates, Function<? super T, ? extends R> evaluator, int threshold) {
+    if (candidates.size() < threshold) {
+      List<R> results = new ArrayList<>();
+      for (T candidate : candidates) {
+        R result = evaluator.apply(candidate);
+        if (result != null) results.add(result);
+      }
+      return results;
+    }
+
+    // workers count their SQL statements towards the request that submitted the candidates
+    Function<? super T, ? extends R> counted = StatementCounter.propagate(evaluator);
+    ForkJoinTask<List<R>> task =
+        pool.submit(
+            () -> candidates.parallelStream().<R>map(counted).filter(Objects::nonNull).toList());
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Coupon evaluation interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      // ForkJoinTask re-creates exceptions thrown by workers around the original, once per join
+      // that crosses threads; rethrow the original
+      while (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+      if (cause instanceof Error error) throw error;
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdown();
+  }
+}
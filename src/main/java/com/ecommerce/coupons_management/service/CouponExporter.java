@@ -0,0 +1,127 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.repository.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.*;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the whole catalog as NDJSON. Coupons are read through a database cursor and handled in
+ * chunks: the BXGY rules of a chunk are loaded with one query, its lines are written, and the
+ * persistence context is cleared, so memory use does not grow with the size of the catalog.
+ */
+@Component
+public class CouponExporter {
+
+  static final int CHUNK_SIZE = 500;
+
+  private final CouponRepository couponRepository;
+  private final BxGyDetailRepository bxGyDetailRepository;
+  private final EntityManager entityManager;
+  private final ObjectWriter writer;
+
+  public CouponExporter(
+      CouponRepository couponRepository,
+      BxGyDetailRepository bxGyDetailRepository,
+      EntityManager entityManager,
+      ObjectMapper objectMapper) {
+    this.couponRepository = couponRepository;
+    this.bxGyDetailRepository = bxGyDetailRepository;
+    this.entityManager = entityManager;
+    this.writer =
+        objectMapper
+            .writerFor(CouponExportDTO.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("");
+  }
+
+  /** Writes one line per coupon, ordered by id, and returns the number of coupons written. */
+  @Transactional
+  public long export(OutputStream out) throws IOException {
+    long written = 0;
+    try (Stream<Coupon> stream = couponRepository.streamAllByOrderByIdAsc();
+        JsonGenerator generator =
+            writer.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      List<Coupon> chunk = new ArrayList<>(CHUNK_SIZE);
+      Iterator<Coupon> coupons = stream.iterator();
+      while (coupons.hasNext()) {
+        chunk.add(coupons.next());
+        if (chunk.size() == CHUNK_SIZE || !coupons.hasNext()) {
+          written += writeChunk(chunk, generator);
+          chunk.clear();
+          generator.flush();
+          entityManager.clear();
+        }
+      }
+    }
+    return written;
+  }
+
+  private int writeChunk(List<Coupon> chunk, JsonGenerator generator) throws IOException {
+    List<Long> bxgyIds = new ArrayList<>();
+    for (Coupon coupon : chunk) {
+      if (coupon.getType() == CouponType.BXGY) bxgyIds.add(coupon.getId());
+    }
+    Map<Long, BxGyDetail> rules = new HashMap<>();
+    if (!bxgyIds.isEmpty()) {
+      for (BxGyDetail detail : bxGyDetailRepository.findByCouponIdIn(bxgyIds)) {
+        rules.putIfAbsent(detail.getCoupon().getId(), detail);
+      }
+    }
+
+    for (Coupon coupon : chunk) {
+      writer.writeValue(generator, toExport(coupon, rules.get(coupon.getId())));
+      generator.writeRaw('\n');
+    }
+    return chunk.size();
+  }
+
+  static CouponExportDTO toExport(Coupon coupon, BxGyDetail rule) {
+    CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+    details.setDiscount(coupon.getDiscount());
+    details.setThreshold(coupon.getThreshold());
+    if (coupon.getProductId() != null) {
+      details.setProductId(String.valueOf(coupon.getProductId()));
+    }
+    if (rule != null) {
+      details.setBuyProducts(toProductQuantities(rule.getBuyProducts()));
+      details.setGetProducts(toProductQuantities(rule.getGetProducts()));
+      details.setRepetitionLimit(rule.getRepetitionLimit());
+    }
+
+    return CouponExportDTO.builder()
+        .id(coupon.getId())
+        .couponCode(coupon.getCouponCode())
+        .type(coupon.getType())
+        .details(details)
+        .isActive(coupon.getIsActive())
+        .startDate(coupon.getStartDate())
+        .expiryDate(coupon.getExpiryDate())
+        .exclusive(coupon.getExclusive())
+        .priority(coupon.getPriority())
+        .maxRedemptions(coupon.getMaxRedemptions())
+        .maxRedemptionsPerCustomer(coupon.getMaxRedemptionsPerCustomer())
+        .build();
+  }
+
+  private static List<CouponRequestDTO.ProductQuantity> toProductQuantities(
+      List<BxGyProduct> products) {
+    List<CouponRequestDTO.ProductQuantity> result = new ArrayList<>(products.size());
+    for (BxGyProduct product : products) {
+      CouponRequestDTO.ProductQuantity quantity = new CouponRequestDTO.ProductQuantity();
+      quantity.setProductId(product.getProductId());
+      quantity.setQuantity(product.getQuantity());
+      result.add(quantity);
+    }
+    return result;
+  }
+}
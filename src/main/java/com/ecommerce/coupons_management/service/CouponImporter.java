@@ -0,0 +1,262 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.dataformat.csv.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports coupons from an NDJSON or CSV upload. Records are parsed one at a time and handed to
+ * {@link CouponService#addCoupons} in chunks, so they get the same validation as single creates and
+ * are written with batched inserts. Only the current chunk and the first {@value
+ * #MAX_REPORTED_ERRORS} errors are held in memory, whatever the size of the upload.
+ *
+ * <p>CSV uploads need a header row. Columns are named after the {@link CouponRequestDTO} fields
+ * ({@code type, isActive, startDate, expiryDate, exclusive, priority, maxRedemptions,
+ * maxRedemptionsPerCustomer}) and its details ({@code threshold, discount, productId, buyProducts,
+ * getProducts, repetitionLimit}). Product lists are written as {@code productId:quantity} pairs
+ * separated by {@code ;}, e.g. {@code 1:2;3:1}.
+ */
+@Slf4j
+@Component
+public class CouponImporter {
+
+  static final int CHUNK_SIZE = 1000;
+  static final int MAX_REPORTED_ERRORS = 1000;
+  private static final int PROGRESS_LOG_INTERVAL = 100_000;
+
+  private final CouponService couponService;
+  private final ObjectReader ndjsonReader;
+  private final ObjectReader csvReader;
+
+  public CouponImporter(CouponService couponService, ObjectMapper objectMapper) {
+    this.couponService = couponService;
+    this.ndjsonReader = objectMapper.readerFor(CouponRequestDTO.class);
+    this.csvReader =
+        new CsvMapper()
+            .readerForMapOf(String.class)
+            .with(CsvSchema.emptySchema().withHeader())
+            .withFeatures(CsvParser.Feature.TRIM_SPACES, CsvParser.Feature.SKIP_EMPTY_LINES);
+  }
+
+  /**
+   * Imports one {@link CouponRequestDTO} per line; blank lines are skipped. Each line is parsed
+   * straight from the stream, without reading it into a string first, and a malformed line only
+   * fails its own record.
+   */
+  public CouponImportReportDTO importNdjson(InputStream input) throws IOException {
+    Run run = new Run();
+    LineReader lines =
+        new LineReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+    long lineNumber = 0;
+    while (lines.next()) {
+      lineNumber++;
+      try (JsonParser parser = ndjsonReader.createParser(lines)) {
+        if (parser.nextToken() == null) continue;
+        run.add(lineNumber, ndjsonReader.readValue(parser));
+      } catch (JsonProcessingException e) {
+        run.reject(lineNumber, "Malformed record: " + e.getOriginalMessage());
+      }
+    }
+    return run.finish();
+  }
+
+  public CouponImportReportDTO importCsv(InputStream input) throws IOException {
+    Run run = new Run();
+    try (MappingIterator<Map<String, String>> rows = csvReader.readValues(input)) {
+      long record = 0;
+      while (rows.hasNextValue()) {
+        Map<String, String> row = rows.nextValue();
+        record++;
+        try {
+          run.add(record, toRequest(row));
+        } catch (RuntimeException e) {
+          run.reject(record, e.getMessage());
+        }
+      }
+    }
+    return run.finish();
+  }
+
+  static CouponRequestDTO toRequest(Map<String, String> row) {
+    CouponRequestDTO request = new CouponRequestDTO();
+    String type = value(row, "type");
+    if (type != null) {
+      try {
+        request.setType(CouponType.valueOf(type.toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unsupported coupon type: " + type);
+      }
+    }
+    String isActive = value(row, "isActive");
+    if (isActive != null) request.setIsActive(Boolean.valueOf(isActive));
+    String startDate = value(row, "startDate");
+    if (startDate != null) request.setStartDate(LocalDate.parse(startDate));
+    String expiryDate = value(row, "expiryDate");
+    if (expiryDate != null) request.setExpiryDate(LocalDate.parse(expiryDate));
+    String exclusive = value(row, "exclusive");
+    if (exclusive != null) request.setExclusive(Boolean.valueOf(exclusive));
+    String priority = value(row, "priority");
+    if (priority != null) request.setPriority(Integer.valueOf(priority));
+    String maxRedemptions = value(row, "maxRedemptions");
+    if (maxRedemptions != null) request.setMaxRedemptions(Integer.valueOf(maxRedemptions));
+    String maxPerCustomer = value(row, "maxRedemptionsPerCustomer");
+    if (maxPerCustomer != null) {
+      request.setMaxRedemptionsPerCustomer(Integer.valueOf(maxPerCustomer));
+    }
+
+    CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+    String threshold = value(row, "threshold");
+    if (threshold != null) details.setThreshold(Double.valueOf(threshold));
+    String discount = value(row, "discount");
+    if (discount != null) details.setDiscount(Double.valueOf(discount));
+    details.setProductId(value(row, "productId"));
+    details.setBuyProducts(productQuantities(value(row, "buyProducts")));
+    details.setGetProducts(productQuantities(value(row, "getProducts")));
+    String repetitionLimit = value(row, "repetitionLimit");
+    if (repetitionLimit != null) details.setRepetitionLimit(Integer.valueOf(repetitionLimit));
+    request.setDetails(details);
+    return request;
+  }
+
+  private static String value(Map<String, String> row, String column) {
+    String value = row.get(column);
+    return value == null || value.isEmpty() ? null : value;
+  }
+
+  private static List<CouponRequestDTO.ProductQuantity> productQuantities(String value) {
+    if (value == null) return null;
+    List<CouponRequestDTO.ProductQuantity> products = new ArrayList<>();
+    for (String pair : value.split(";")) {
+      String[] parts = pair.split(":");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Invalid product list: " + value);
+      }
+      CouponRequestDTO.ProductQuantity product = new CouponRequestDTO.ProductQuantity();
+      product.setProductId(Long.valueOf(parts[0].trim()));
+      product.setQuantity(Integer.valueOf(parts[1].trim()));
+      products.add(product);
+    }
+    return products;
+  }
+
+  /**
+   * Reads one line of the input at a time: ends at the next line break, and {@link #next()} skips
+   * what a parser left of the current line and moves to the following one.
+   */
+  private static final class LineReader extends Reader {
+    private final BufferedReader in;
+    private boolean lineEnded = true;
+
+    LineReader(BufferedReader in) {
+      this.in = in;
+    }
+
+    /** Moves to the next line; returns false at the end of the input. */
+    boolean next() throws IOException {
+      while (!lineEnded) lineEnded = isLineEnd(in.read());
+      in.mark(1);
+      if (in.read() == -1) return false;
+      in.reset();
+      lineEnded = false;
+      return true;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      int count = 0;
+      while (!lineEnded && count < length) {
+        int c = in.read();
+        lineEnded = isLineEnd(c);
+        if (!lineEnded) buffer[offset + count++] = (char) c;
+      }
+      return count == 0 && lineEnded ? -1 : count;
+    }
+
+    private static boolean isLineEnd(int c) {
+      return c == '\n' || c == -1;
+    }
+
+    /** Parsers close their source after each line; the input stays open. */
+    @Override
+    public void close() {}
+  }
+
+  /** State of one import: the pending chunk and the running report. */
+  private final class Run {
+    private final List<CouponRequestDTO> requests = new ArrayList<>(CHUNK_SIZE);
+    private final long[] recordNumbers = new long[CHUNK_SIZE];
+    private final List<CouponImportReportDTO.RecordError> errors = new ArrayList<>();
+    private long processed;
+    private long created;
+    private long failed;
+    private boolean errorsTruncated;
+
+    void add(long record, CouponRequestDTO request) {
+      if (request == null) {
+        reject(record, "Empty record");
+        return;
+      }
+      recordNumbers[requests.size()] = record;
+      requests.add(request);
+      if (requests.size() == CHUNK_SIZE) flush();
+    }
+
+    void reject(long record, String error) {
+      processed++;
+      failed++;
+      report(record, error);
+    }
+
+    private void report(long record, String error) {
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add(CouponImportReportDTO.RecordError.builder().record(record).error(error).build());
+      } else {
+        errorsTruncated = true;
+      }
+    }
+
+    private void flush() {
+      if (requests.isEmpty()) return;
+      BulkCouponResponseDTO result = couponService.addCoupons(requests);
+      for (BulkCouponResponseDTO.ItemResult item : result.getResults()) {
+        if (item.getError() != null) report(recordNumbers[item.getIndex()], item.getError());
+      }
+      long before = processed;
+      processed += requests.size();
+      created += result.getCreated();
+      failed += result.getFailed();
+      requests.clear();
+      if (processed / PROGRESS_LOG_INTERVAL != before / PROGRESS_LOG_INTERVAL) {
+        log.info(
+            "Coupon import: {} records processed, {} created, {} failed",
+            processed,
+            created,
+            failed);
+      }
+    }
+
+    CouponImportReportDTO finish() {
+      flush();
+      log.info(
+          "Coupon import finished: {} records processed, {} created, {} failed",
+          processed,
+          created,
+          failed);
+      return CouponImportReportDTO.builder()
+          .processed(processed)
+          .created(created)
+          .failed(failed)
+          .errors(errors)
+          .errors_truncated(errorsTruncated)
+          .build();
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.BxGyDetail;
+import com.ecommerce.coupons_management.model.BxGyProduct;
+import com.ecommerce.coupons_management.model.Coupon;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory rule index over the coupon catalog. Finding the candidate coupons for a cart costs a
+ * lookup per cart line plus a binary search over cart-wise thresholds, independent of the number of
+ * coupons in the catalog.
+ *
+ * <p>PRODUCT_WISE coupons are keyed by {@code productId}, BXGY coupons by each of their buy product
+ * ids, and CART_WISE coupons are kept in an array sorted by threshold. Candidates are a superset of
+ * the applicable coupons: activity, expiry and quantity checks are still done by the caller.
+ */
+@Component
+public class CouponIndex {
+
+  private static final Coupon[] NO_COUPONS = new Coupon[0];
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<Long, Coupon> couponsById = new HashMap<>();
+  private final Map<Long, Set<Long>> productWiseByProduct = new HashMap<>();
+  private final Map<Long, Set<Long>> bxgyByBuyProduct = new HashMap<>();
+  private final Map<Long, Set<Long>> buyProductsByBxgyCoupon = new HashMap<>();
+  private final Map<Long, Coupon> cartWiseById = new HashMap<>();
+
+  private boolean cartWiseChanged;
+  private Coupon[] cartWiseByThreshold = NO_COUPONS;
+  private double[] cartWiseThresholds = new double[0];
+
+  /** Replaces the whole index with the given catalog. */
+  public void rebuild(Collection<Coupon> coupons, Collection<BxGyDetail> bxgyDetails) {
+    Map<Long, Set<Long>> buyProducts = new HashMap<>();
+    for (BxGyDetail detail : bxgyDetails) {
+      if (detail.getCoupon() == null) continue;
+      Set<Long> productIds =
+          buyProducts.computeIfAbsent(detail.getCoupon().getId(), id -> new HashSet<>());
+      for (BxGyProduct buyProduct : detail.getBuyProducts()) {
+        productIds.add(buyProduct.getProductId());
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      couponsById.clear();
+      productWiseByProduct.clear();
+      bxgyByBuyProduct.clear();
+      buyProductsByBxgyCoupon.clear();
+      cartWiseById.clear();
+      cartWiseChanged = true;
+      for (Coupon coupon : coupons) {
+        insert(coupon, buyProducts.getOrDefault(coupon.getId(), Set.of()));
+      }
+      sortCartWise();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds or replaces a coupon. BXGY coupons keep the buy products they were indexed with before;
+   * use {@link #put(Coupon, Collection)} when those change.
+   */
+  public void put(Coupon coupon) {
+    lock.writeLock().lock();
+    try {
+      Set<Long> buyProducts = buyProductsByBxgyCoupon.getOrDefault(coupon.getId(), Set.of());
+      unlink(coupon.getId());
+      insert(coupon, buyProducts);
+      sortCartWise();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Adds or replaces a coupon together with the buy products of its BXGY rules. */
+  public void put(Coupon coupon, Collection<Long> buyProductIds) {
+    lock.writeLock().lock();
+    try {
+      unlink(coupon.getId());
+      insert(coupon, buyProductIds);
+      sortCartWise();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds or replaces many coupons under a single lock, re-sorting the cart-wise array once. {@code
+   * buyProductIds} maps BXGY coupon ids to the buy products of their rules.
+   */
+  public void putAll(Collection<Coupon> coupons, Map<Long, List<Long>> buyProductIds) {
+    lock.writeLock().lock();
+    try {
+      for (Coupon coupon : coupons) {
+        unlink(coupon.getId());
+        insert(coupon, buyProductIds.getOrDefault(coupon.getId(), List.of()));
+      }
+      sortCartWise();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(Long couponId) {
+    lock.writeLock().lock();
+    try {
+      unlink(couponId);
+      sortCartWise();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the coupons that may apply to a cart containing {@code productIds} and worth {@code
+   * cartTotal}, ordered by coupon id.
+   */
+  public List<Coupon> candidates(Collection<Long> productIds, double cartTotal) {
+    lock.readLock().lock();
+    try {
+      Set<Long> ids = new TreeSet<>();
+      for (Long productId : productIds) {
+        ids.addAll(productWiseByProduct.getOrDefault(productId, Set.of()));
+        ids.addAll(bxgyByBuyProduct.getOrDefault(productId, Set.of()));
+      }
+      int eligible = upperBound(cartWiseThresholds, cartTotal);
+      for (int i = 0; i < eligible; i++) {
+        ids.add(cartWiseByThreshold[i].getId());
+      }
+
+      List<Coupon> candidates = new ArrayList<>(ids.size());
+      for (Long id : ids) {
+        candidates.add(couponsById.get(id));
+      }
+      return candidates;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns the indexed coupon with this id, or null. */
+  public Coupon get(Long couponId) {
+    lock.readLock().lock();
+    try {
+      return couponsById.get(couponId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return couponsById.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void insert(Coupon coupon, Collection<Long> buyProductIds) {
+    if (coupon.getId() == null || coupon.getType() == null) return;
+    couponsById.put(coupon.getId(), coupon);
+
+    switch (coupon.getType()) {
+      case CART_WISE -> {
+        cartWiseById.put(coupon.getId(), coupon);
+        cartWiseChanged = true;
+      }
+      case PRODUCT_WISE -> {
+        if (coupon.getProductId() != null) {
+          productWiseByProduct
+              .computeIfAbsent(coupon.getProductId(), id -> new HashSet<>())
+              .add(coupon.getId());
+        }
+      }
+      case BXGY -> {
+        Set<Long> buyProducts = new HashSet<>(buyProductIds);
+        buyProductsByBxgyCoupon.put(coupon.getId(), buyProducts);
+        for (Long productId : buyProducts) {
+          bxgyByBuyProduct.computeIfAbsent(productId, id -> new HashSet<>()).add(coupon.getId());
+        }
+      }
+    }
+  }
+
+  private void unlink(Long couponId) {
+    Coupon previous = couponsById.remove(couponId);
+    if (previous == null) return;
+
+    if (cartWiseById.remove(couponId) != null) {
+      cartWiseChanged = true;
+    }
+    if (previous.getType() == CouponType.PRODUCT_WISE && previous.getProductId() != null) {
+      removeFrom(productWiseByProduct, previous.getProductId(), couponId);
+    }
+    Set<Long> buyProducts = buyProductsByBxgyCoupon.remove(couponId);
+    if (buyProducts != null) {
+      for (Long productId : buyProducts) {
+        removeFrom(bxgyByBuyProduct, productId, couponId);
+      }
+    }
+  }
+
+  private static void removeFrom(Map<Long, Set<Long>> index, Long key, Long couponId) {
+    Set<Long> ids = index.get(key);
+    if (ids == null) return;
+    ids.remove(couponId);
+    if (ids.isEmpty()) index.remove(key);
+  }
+
+  private void sortCartWise() {
+    if (!cartWiseChanged) return;
+    Coupon[] cartWise =
+        cartWiseById.values().stream()
+            .sorted(Comparator.comparingDouble(CouponIndex::thresholdOf))
+            .toArray(Coupon[]::new);
+    double[] thresholds = new double[cartWise.length];
+    for (int i = 0; i < cartWise.length; i++) {
+      thresholds[i] = thresholdOf(cartWise[i]);
+    }
+    cartWiseByThreshold = cartWise;
+    cartWiseThresholds = thresholds;
+    cartWiseChanged = false;
+  }
+
+  /** A coupon without a threshold applies to every cart. */
+  private static double thresholdOf(Coupon coupon) {
+    return coupon.getThreshold() != null ? coupon.getThreshold() : Double.NEGATIVE_INFINITY;
+  }
+
+  /** Number of thresholds that are {@code <= value}. */
+  private static int upperBound(double[] sorted, double value) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] <= value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
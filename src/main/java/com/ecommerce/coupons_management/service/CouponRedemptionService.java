@@ -0,0 +1,327 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.dto.ReservationResponseDTO;
+import com.ecommerce.coupons_management.exception.*;
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.repository.CouponRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks coupon redemptions in memory and writes them to the database in batches.
+ *
+ * <p>A redemption is a reservation followed by a confirmation. Reserving takes one use of the
+ * coupon and, when the coupon has a per-customer limit, one use of the customer's limit.
+ * Unconfirmed reservations are released when they expire. Confirmed redemptions are buffered and
+ * flushed periodically: one {@code UPDATE} per coupon with the accumulated count plus batched
+ * inserts into {@code coupon_redemptions}.
+ *
+ * <p>Limits hold across application instances. Uses of {@code maxRedemptions} are claimed from the
+ * database in blocks of {@code coupons.redemptions.claim-size} (default 20) with a conditional
+ * {@code UPDATE} that never lets the claims of all instances pass the limit; blocks shrink to a
+ * single use near it. Claimed uses are handed out from an {@link AtomicLong} raised by
+ * compare-and-set, so most checkouts never touch the database. Uses of {@code
+ * maxRedemptionsPerCustomer} are claimed one at a time the same way. Claimed uses are given back on
+ * shutdown; those of an instance that dies are lost, so a crash can undersell a coupon but never
+ * oversell it.
+ */
+@Slf4j
+@Service
+public class CouponRedemptionService {
+
+  private final CouponIndex couponIndex;
+  private final CouponRepository couponRepository;
+  private final CouponBatchWriter couponBatchWriter;
+  private final CatalogVersion catalogVersion;
+  private final Duration reservationTtl;
+  private final int claimSize;
+  private final Clock clock;
+
+  /**
+   * Uses per coupon taken on this instance: confirmed redemptions plus outstanding reservations.
+   */
+  private final Map<Long, AtomicLong> usesByCoupon = new ConcurrentHashMap<>();
+
+  /** Uses per limited coupon this instance has claimed in the database; never below its uses. */
+  private final Map<Long, AtomicLong> claimedByCoupon = new ConcurrentHashMap<>();
+
+  /** Limited coupons whose last claim was refused because every use is claimed. */
+  private final Set<Long> fullyClaimed = ConcurrentHashMap.newKeySet();
+
+  private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+  /** Confirmed redemptions not yet written to the database. */
+  private final Map<Long, AtomicLong> unflushedCounts = new ConcurrentHashMap<>();
+
+  private final Queue<CouponRedemption> unflushedRedemptions = new ConcurrentLinkedQueue<>();
+
+  private record Reservation(
+      String token, Long couponId, String customerId, boolean perCustomer, Instant expiresAt) {}
+
+  @Autowired
+  public CouponRedemptionService(
+      CouponIndex couponIndex,
+      CouponRepository couponRepository,
+      CouponBatchWriter couponBatchWriter,
+      CatalogVersion catalogVersion,
+      @Value("${coupons.redemptions.reservation-ttl-seconds:300}") long reservationTtlSeconds,
+      @Value("${coupons.redemptions.claim-size:20}") int claimSize) {
+    this(
+        couponIndex,
+        couponRepository,
+        couponBatchWriter,
+        catalogVersion,
+        Duration.ofSeconds(reservationTtlSeconds),
+        claimSize,
+        Clock.systemDefaultZone());
+  }
+
+  CouponRedemptionService(
+      CouponIndex couponIndex,
+      CouponRepository couponRepository,
+      CouponBatchWriter couponBatchWriter,
+      CatalogVersion catalogVersion,
+      Duration reservationTtl,
+      int claimSize,
+      Clock clock) {
+    this.couponIndex = couponIndex;
+    this.couponRepository = couponRepository;
+    this.couponBatchWriter = couponBatchWriter;
+    this.catalogVersion = catalogVersion;
+    this.reservationTtl = reservationTtl;
+    this.claimSize = Math.max(1, claimSize);
+    this.clock = clock;
+  }
+
+  /**
+   * Reserves one use of the coupon for the customer, or fails if a limit has been reached. Coupons
+   * that are inactive, expired or not started yet are refused; they are not in {@link CouponIndex},
+   * so they are looked up in the database to tell them apart from unknown ids.
+   */
+  public ReservationResponseDTO reserve(Long couponId, String customerId) {
+    Coupon coupon = couponIndex.get(couponId);
+    if (coupon == null) {
+      coupon =
+          couponRepository
+              .findById(couponId)
+              .orElseThrow(
+                  () -> new CouponNotFoundException("Coupon not found with ID: " + couponId));
+    }
+    if (!CouponActivationScheduler.isLive(coupon, LocalDate.now(clock))) {
+      throw new IllegalArgumentException("Coupon expired or inactive");
+    }
+    boolean perCustomer = coupon.getMaxRedemptionsPerCustomer() != null;
+    if (perCustomer && (customerId == null || customerId.isBlank())) {
+      throw new IllegalArgumentException("customerId is required for this coupon");
+    }
+
+    if (!acquire(coupon)) {
+      throw new CouponLimitExceededException("Coupon redemption limit reached");
+    }
+    if (perCustomer) {
+      boolean acquired = false;
+      try {
+        acquired = acquireCustomerUse(couponId, customerId, coupon.getMaxRedemptionsPerCustomer());
+      } finally {
+        if (!acquired) usesByCoupon.get(couponId).decrementAndGet();
+      }
+      if (!acquired) {
+        throw new CouponLimitExceededException("Coupon redemption limit reached for this customer");
+      }
+    }
+
+    Reservation reservation =
+        new Reservation(
+            UUID.randomUUID().toString(),
+            couponId,
+            customerId,
+            perCustomer,
+            clock.instant().plus(reservationTtl));
+    reservations.put(reservation.token(), reservation);
+    return ReservationResponseDTO.builder()
+        .token(reservation.token())
+        .coupon_id(couponId)
+        .expires_at(reservation.expiresAt())
+        .build();
+  }
+
+  /** Turns a reservation into a redemption. */
+  public void confirm(String token) {
+    Reservation reservation = reservations.remove(token);
+    if (reservation == null) {
+      throw new IllegalArgumentException("Unknown or expired reservation: " + token);
+    }
+    if (reservation.expiresAt().isBefore(clock.instant())) {
+      release(reservation);
+      throw new IllegalArgumentException("Unknown or expired reservation: " + token);
+    }
+
+    unflushedCounts
+        .computeIfAbsent(reservation.couponId(), id -> new AtomicLong())
+        .incrementAndGet();
+    unflushedRedemptions.add(
+        CouponRedemption.builder()
+            .couponId(reservation.couponId())
+            .customerId(reservation.customerId())
+            .redeemedAt(LocalDateTime.now(clock))
+            .build());
+  }
+
+  /** Gives a reserved use back, e.g. when the checkout is abandoned. */
+  public void cancel(String token) {
+    Reservation reservation = reservations.remove(token);
+    if (reservation == null) {
+      throw new IllegalArgumentException("Unknown or expired reservation: " + token);
+    }
+    release(reservation);
+  }
+
+  /**
+   * True when every allowed use of the coupon is redeemed or reserved, as far as this instance
+   * knows without a query: it has no claimed use left and its last claim was refused, or the
+   * coupon's stored redemption count has reached the limit.
+   */
+  public boolean isExhausted(Coupon coupon) {
+    if (coupon.getMaxRedemptions() == null) return false;
+    AtomicLong uses = usesByCoupon.get(coupon.getId());
+    AtomicLong claimed = claimedByCoupon.get(coupon.getId());
+    if (uses != null && claimed != null && uses.get() < claimed.get()) return false;
+    return fullyClaimed.contains(coupon.getId())
+        || redemptionCountOf(coupon) >= coupon.getMaxRedemptions();
+  }
+
+  @Scheduled(fixedDelayString = "${coupons.redemptions.expiry-interval-ms:10000}")
+  public void releaseExpiredReservations() {
+    Instant now = clock.instant();
+    for (Reservation reservation : reservations.values()) {
+      if (reservation.expiresAt().isBefore(now)
+          && reservations.remove(reservation.token(), reservation)) {
+        release(reservation);
+      }
+    }
+  }
+
+  /** Writes buffered redemptions; on failure they are kept for the next flush. */
+  @Scheduled(fixedDelayString = "${coupons.redemptions.flush-interval-ms:1000}")
+  public synchronized void flush() {
+    Map<Long, Long> counts = new HashMap<>();
+    for (Map.Entry<Long, AtomicLong> entry : unflushedCounts.entrySet()) {
+      long count = entry.getValue().getAndSet(0);
+      if (count > 0) counts.put(entry.getKey(), count);
+    }
+    List<CouponRedemption> redemptions = new ArrayList<>();
+    for (CouponRedemption redemption; (redemption = unflushedRedemptions.poll()) != null; ) {
+      redemptions.add(redemption);
+    }
+    if (counts.isEmpty() && redemptions.isEmpty()) return;
+
+    try {
+      couponBatchWriter.recordRedemptions(counts, redemptions);
+      catalogVersion.couponsBumped(counts.keySet());
+    } catch (RuntimeException e) {
+      log.error("Failed to flush {} coupon redemptions, will retry", redemptions.size(), e);
+      counts.forEach(
+          (couponId, count) ->
+              unflushedCounts.computeIfAbsent(couponId, id -> new AtomicLong()).addAndGet(count));
+      unflushedRedemptions.addAll(redemptions);
+    }
+  }
+
+  /**
+   * Writes buffered redemptions, drops outstanding reservations and gives back the claimed uses
+   * this instance will no longer hand out.
+   */
+  @PreDestroy
+  public synchronized void close() {
+    flush();
+    for (Reservation reservation : reservations.values()) {
+      if (reservations.remove(reservation.token(), reservation)) release(reservation);
+    }
+    Map<Long, Long> unused = new HashMap<>();
+    claimedByCoupon.forEach(
+        (couponId, claimed) -> {
+          long count = claimed.getAndSet(0) - usesByCoupon.get(couponId).getAndSet(0);
+          if (count > 0) unused.put(couponId, count);
+        });
+    if (unused.isEmpty()) return;
+    try {
+      couponBatchWriter.returnUses(unused);
+    } catch (RuntimeException e) {
+      log.error("Failed to give back unused claims of {} coupons", unused.size(), e);
+    }
+  }
+
+  private void release(Reservation reservation) {
+    usesByCoupon.get(reservation.couponId()).decrementAndGet();
+    if (reservation.perCustomer()) {
+      try {
+        couponBatchWriter.releaseCustomerUse(reservation.couponId(), reservation.customerId());
+      } catch (RuntimeException e) {
+        log.error("Failed to release a use of coupon {}", reservation.couponId(), e);
+      }
+    }
+  }
+
+  /** Takes one use of the coupon, claiming more from the database when the claimed ones run out. */
+  private boolean acquire(Coupon coupon) {
+    AtomicLong uses = usesByCoupon.computeIfAbsent(coupon.getId(), id -> new AtomicLong());
+    if (coupon.getMaxRedemptions() == null) {
+      uses.incrementAndGet();
+      return true;
+    }
+    AtomicLong claimed = claimedByCoupon.computeIfAbsent(coupon.getId(), id -> new AtomicLong());
+    while (!tryAcquire(uses, claimed.get())) {
+      synchronized (claimed) {
+        if (uses.get() < claimed.get()) continue;
+        long granted = claim(coupon.getId());
+        if (granted == 0) {
+          fullyClaimed.add(coupon.getId());
+          return false;
+        }
+        fullyClaimed.remove(coupon.getId());
+        claimed.addAndGet(granted);
+      }
+    }
+    return true;
+  }
+
+  /** Claims a block of uses, halving it while it would pass the limit; 0 when none is left. */
+  private long claim(Long couponId) {
+    for (long count = claimSize; count > 0; count /= 2) {
+      if (couponBatchWriter.claimUses(couponId, count)) return count;
+    }
+    return 0;
+  }
+
+  private boolean acquireCustomerUse(Long couponId, String customerId, int limit) {
+    try {
+      return couponBatchWriter.claimCustomerUse(couponId, customerId, limit);
+    } catch (DataIntegrityViolationException e) {
+      // the customer's first use was recorded concurrently; the row exists now
+      return couponBatchWriter.claimCustomerUse(couponId, customerId, limit);
+    }
+  }
+
+  private static long redemptionCountOf(Coupon coupon) {
+    return coupon.getRedemptionCount() != null ? coupon.getRedemptionCount() : 0;
+  }
+
+  /** Takes one use unless that would go past {@code limit}. */
+  private static boolean tryAcquire(AtomicLong uses, long limit) {
+    long current;
+    do {
+      current = uses.get();
+      if (current >= limit) return false;
+    } while (!uses.compareAndSet(current, current + 1));
+    return true;
+  }
+}
@@ -2,13 +2,17 @@ package com.ecommerce.coupons_management.service;
 
 import com.ecommerce.coupons_management.dto.*;
 import com.ecommerce.coupons_management.enums.CouponType;
-import com.ecommerce.coupons_management.exception.CouponNotFoundException;
+import com.ecommerce.coupons_management.exception.*;
+import com.ecommerce.coupons_management.metrics.CouponMetrics;
 import com.ecommerce.coupons_management.model.*;
 import com.ecommerce.coupons_management.repository.*;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 
@@ -16,19 +20,151 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class CouponService {
 
+  /** Coupons written per transaction by {@link #addCoupons}. */
+  private static final int BULK_CHUNK_SIZE = 1000;
+
+  private static final int MAX_CURSOR_LIMIT = 1000;
+
   private final CouponRepository couponRepository;
   private final BxGyDetailRepository bxGyDetailRepository;
   private final ProductRepository productRepository;
+  private final CouponIndex couponIndex;
+  private final BxGyRuleCache bxGyRuleCache;
+  private final BestDealSearch bestDealSearch;
+  private final CouponBatchWriter couponBatchWriter;
+  private final CouponCodeGenerator couponCodeGenerator;
+  private final CouponRedemptionService couponRedemptionService;
+  private final CouponMetrics couponMetrics;
+  private final CouponEvaluationPool couponEvaluationPool;
+  private final CatalogVersion catalogVersion;
+  private final EvaluationCache evaluationCache;
+  private final CouponCodeCache couponCodeCache;
+  private final CouponActivationScheduler couponActivationScheduler;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildIndex() {
+    bxGyRuleCache.clear();
+    couponCodeCache.startRebuild();
+    List<Coupon> coupons = couponRepository.findAll();
+    couponIndex.rebuild(live(coupons), bxGyDetailRepository.findAll());
+    catalogVersion.reset(coupons);
+    couponCodeCache.rebuild(coupons);
+    couponActivationScheduler.reset(coupons);
+  }
+
+  /** The coupons that can be used today; only these are indexed. */
+  private static List<Coupon> live(Collection<Coupon> coupons) {
+    LocalDate today = LocalDate.now();
+    List<Coupon> live = new ArrayList<>(coupons.size());
+    for (Coupon coupon : coupons) {
+      if (CouponActivationScheduler.isLive(coupon, today)) live.add(coupon);
+    }
+    return live;
+  }
 
   public Coupon addCoupon(CouponRequestDTO request) {
+    Coupon coupon = couponRepository.save(buildCoupon(request));
+
+    // Save BXGY details if present
+    BxGyDetail bxgy = buildBxGyDetail(coupon, request);
+    if (bxgy != null) {
+      bxGyDetailRepository.save(bxgy);
+    }
+
+    bxGyRuleCache.evict(coupon.getId());
+    if (CouponActivationScheduler.isLive(coupon, LocalDate.now())) {
+      couponIndex.put(coupon, buyProductIdsOf(bxgy));
+    }
+    catalogVersion.couponSaved(coupon);
+    couponCodeCache.codesCreated(List.of(coupon));
+    couponActivationScheduler.schedule(List.of(coupon));
+    return coupon;
+  }
+
+  /**
+   * Creates many coupons in one call. Each request is validated like {@link #addCoupon}; valid
+   * coupons are written in chunks, each chunk in one transaction using JDBC batch inserts. Invalid
+   * requests and failed chunks are reported per item and do not stop the rest.
+   */
+  public BulkCouponResponseDTO addCoupons(List<CouponRequestDTO> requests) {
+    List<BulkCouponResponseDTO.ItemResult> results = new ArrayList<>(requests.size());
+    int created = 0;
+
+    for (int start = 0; start < requests.size(); start += BULK_CHUNK_SIZE) {
+      int end = Math.min(start + BULK_CHUNK_SIZE, requests.size());
+      List<Coupon> coupons = new ArrayList<>();
+      List<BxGyDetail> bxgyDetails = new ArrayList<>();
+      List<BulkCouponResponseDTO.ItemResult> pending = new ArrayList<>();
+
+      for (int index = start; index < end; index++) {
+        BulkCouponResponseDTO.ItemResult result =
+            BulkCouponResponseDTO.ItemResult.builder().index(index).build();
+        results.add(result);
+        try {
+          CouponRequestDTO request = requests.get(index);
+          Coupon coupon = buildCoupon(request);
+          BxGyDetail bxgy = buildBxGyDetail(coupon, request);
+          coupons.add(coupon);
+          if (bxgy != null) bxgyDetails.add(bxgy);
+          pending.add(result);
+        } catch (RuntimeException e) {
+          result.setError(e.getMessage());
+        }
+      }
+      if (coupons.isEmpty()) continue;
+
+      try {
+        couponBatchWriter.insert(coupons, bxgyDetails);
+      } catch (RuntimeException e) {
+        pending.forEach(result -> result.setError("Batch insert failed: " + e.getMessage()));
+        continue;
+      }
+
+      Map<Long, List<Long>> buyProductIds = new HashMap<>();
+      for (BxGyDetail bxgy : bxgyDetails) {
+        buyProductIds.put(bxgy.getCoupon().getId(), buyProductIdsOf(bxgy));
+      }
+      couponIndex.putAll(live(coupons), buyProductIds);
+      catalogVersion.couponsSaved(coupons);
+      couponCodeCache.codesCreated(coupons);
+      couponActivationScheduler.schedule(coupons);
+      for (int i = 0; i < coupons.size(); i++) {
+        pending.get(i).setCoupon_id(coupons.get(i).getId());
+        pending.get(i).setCoupon_code(coupons.get(i).getCouponCode());
+      }
+      created += coupons.size();
+    }
+
+    return BulkCouponResponseDTO.builder()
+        .created(created)
+        .failed(requests.size() - created)
+        .results(results)
+        .build();
+  }
+
+  /** Validates a create request and builds the coupon it describes, without saving it. */
+  Coupon buildCoupon(CouponRequestDTO request) {
     Coupon coupon = new Coupon();
     CouponType type = request.getType();
+    if (type == null) {
+      throw new IllegalArgumentException("Coupon type is required");
+    }
 
     coupon.setType(type);
-    coupon.setCouponCode("COUPON-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+    coupon.setCouponCode(couponCodeGenerator.nextCode());
     coupon.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
+    coupon.setStartDate(request.getStartDate());
+    LocalDate validFrom = request.getStartDate() != null ? request.getStartDate() : LocalDate.now();
     coupon.setExpiryDate(
-        request.getExpiryDate() != null ? request.getExpiryDate() : LocalDate.now().plusMonths(1));
+        request.getExpiryDate() != null ? request.getExpiryDate() : validFrom.plusMonths(1));
+    if (coupon.getStartDate() != null && coupon.getStartDate().isAfter(coupon.getExpiryDate())) {
+      throw new IllegalArgumentException("Start date must not be after expiry date");
+    }
+    coupon.setExclusive(request.getExclusive() != null ? request.getExclusive() : false);
+    coupon.setPriority(request.getPriority() != null ? request.getPriority() : 0);
+    coupon.setMaxRedemptions(request.getMaxRedemptions());
+    coupon.setMaxRedemptionsPerCustomer(request.getMaxRedemptionsPerCustomer());
+    coupon.setRedemptionCount(0L);
 
     if (request.getDetails() != null) {
       switch (type) {
@@ -54,142 +190,233 @@ public class CouponService {
       }
     }
 
-    coupon = couponRepository.save(coupon);
-
-    // Save BXGY details if present
-    if (type == CouponType.BXGY && request.getDetails() != null) {
-      var details = request.getDetails();
-      if (details.getBuyProducts() != null && details.getGetProducts() != null) {
-        for (var buyProduct : details.getBuyProducts()) {
-          for (var getProduct : details.getGetProducts()) {
-            BxGyDetail bxgy =
-                BxGyDetail.builder()
-                    .coupon(coupon)
-                    .buyProductId(buyProduct.getProductId())
-                    .buyQuantity(buyProduct.getQuantity())
-                    .getProductId(getProduct.getProductId())
-                    .getQuantity(getProduct.getQuantity())
-                    .repetitionLimit(details.getRepetitionLimit())
-                    .build();
-            bxGyDetailRepository.save(bxgy);
-          }
-        }
-      }
-    }
-
     return coupon;
   }
 
-  public CartResponseDTO applyCoupon(CartRequestDTO cartRequest) {
-    List<CartRequestDTO.CartItem> cartItems = cartRequest.getCart().getItems();
+  /** Builds the BXGY rule of a coupon, or returns null when the request does not define one. */
+  BxGyDetail buildBxGyDetail(Coupon coupon, CouponRequestDTO request) {
+    var details = request.getDetails();
+    if (coupon.getType() != CouponType.BXGY
+        || details == null
+        || details.getBuyProducts() == null
+        || details.getGetProducts() == null) {
+      return null;
+    }
 
-    double totalPrice = 0.0;
-    List<CartResponseDTO.ItemResponse> itemResponses = new ArrayList<>();
+    return BxGyDetail.builder()
+        .coupon(coupon)
+        .buyProducts(toBxGyProducts(details.getBuyProducts()))
+        .getProducts(toBxGyProducts(details.getGetProducts()))
+        .repetitionLimit(details.getRepetitionLimit())
+        .build();
+  }
 
-    for (CartRequestDTO.CartItem item : cartItems) {
-      Product product =
-          productRepository
-              .findById(item.getProductId())
-              .orElseThrow(() -> new RuntimeException("Product not found: " + item.getProductId()));
+  private static List<Long> buyProductIdsOf(BxGyDetail bxgy) {
+    if (bxgy == null) return List.of();
+    List<Long> buyProductIds = new ArrayList<>(bxgy.getBuyProducts().size());
+    for (BxGyProduct buyProduct : bxgy.getBuyProducts()) {
+      buyProductIds.add(buyProduct.getProductId());
+    }
+    return buyProductIds;
+  }
 
-      double itemTotal = product.getPrice() * item.getQuantity();
-      totalPrice += itemTotal;
+  private static List<BxGyProduct> toBxGyProducts(List<CouponRequestDTO.ProductQuantity> products) {
+    List<BxGyProduct> bxgyProducts = new ArrayList<>(products.size());
+    for (CouponRequestDTO.ProductQuantity product : products) {
+      bxgyProducts.add(new BxGyProduct(product.getProductId(), product.getQuantity()));
+    }
+    return bxgyProducts;
+  }
 
-      itemResponses.add(
-          new CartResponseDTO.ItemResponse(
-              item.getProductId(), item.getQuantity(), product.getPrice(), 0.0));
+  public CartResponseDTO applyCoupon(CartRequestDTO cartRequest) {
+    List<CartRequestDTO.CartItem> cartItems = cartRequest.getCart().getItems();
+    EvaluationCache.Key key =
+        evaluationCache.applyKey(cartRequest.getCouponCode(), cartItems, LocalDate.now());
+    EvaluationCache.Applied cached = evaluationCache.getApplied(key);
+    if (cached != null) {
+      requireRedeemable(cached.coupon());
+      return cached.response();
     }
 
-    Coupon coupon =
-        couponRepository
-            .findByCouponCode(cartRequest.getCouponCode())
-            .orElseThrow(() -> new CouponNotFoundException("Invalid coupon code"));
+    Timer.Sample stage = couponMetrics.start();
+    Map<Long, Double> prices = resolvePrices(cartItems);
+    couponMetrics.stop(stage, CouponMetrics.APPLY, CouponMetrics.PRODUCT_LOOKUP);
 
-    if (!coupon.getIsActive() || coupon.getExpiryDate().isBefore(LocalDate.now())) {
-      throw new CouponNotFoundException("Coupon expired or inactive");
+    stage = couponMetrics.start();
+    Optional<Coupon> found = findByCode(cartRequest.getCouponCode());
+    couponMetrics.stop(stage, CouponMetrics.APPLY, CouponMetrics.COUPON_LOOKUP);
+    if (found.isEmpty()) {
+      couponMetrics.rejected(null, CouponMetrics.INVALID_CODE);
+      throw new CouponNotFoundException("Invalid coupon code");
+    }
+    Coupon coupon = found.get();
+    requireRedeemable(coupon);
+
+    List<BxGyDetail> bxgyDetails = List.of();
+    if (coupon.getType() == CouponType.BXGY) {
+      stage = couponMetrics.start();
+      bxgyDetails = bxGyRuleCache.getRules(coupon.getId());
+      couponMetrics.stop(stage, CouponMetrics.APPLY, CouponMetrics.BXGY_RULES);
     }
 
-    double totalDiscount = 0.0;
-    String message;
+    stage = couponMetrics.start();
+    CartResponseDTO response = discountCart(CartKernel.of(cartItems, prices), coupon, bxgyDetails);
+    couponMetrics.stop(stage, CouponMetrics.APPLY, CouponMetrics.DISCOUNT);
+    evaluationCache.putApplied(key, new EvaluationCache.Applied(coupon, response));
+    return response;
+  }
 
-    switch (coupon.getType()) {
-      case CART_WISE -> {
-        totalDiscount = totalPrice * (coupon.getDiscount() / 100);
-        message = "Cart-wise discount applied!";
-      }
+  /**
+   * Looks a coupon up by code through {@link CouponCodeCache}: codes known not to exist are refused
+   * and recently read coupons are served without a query.
+   */
+  private Optional<Coupon> findByCode(String couponCode) {
+    Coupon cached = couponCodeCache.get(couponCode);
+    if (cached != null) return Optional.of(cached);
+    if (!couponCodeCache.mightExist(couponCode)) return Optional.empty();
+
+    Optional<Coupon> found = couponRepository.findByCouponCode(couponCode);
+    if (found.isPresent()) {
+      couponCodeCache.found(found.get());
+    } else {
+      couponCodeCache.missing(couponCode);
+    }
+    return found;
+  }
 
-      case PRODUCT_WISE -> {
-        for (CartResponseDTO.ItemResponse item : itemResponses) {
-          double discount =
-              getProductDiscount(
-                  item.getProductId(), item.getQuantity(), item.getPrice(), coupon.getId());
-          item.setTotalDiscount(discount);
-          totalDiscount += discount;
+  /**
+   * Applies many (cart, coupon) pairs at once. Products, coupons and BXGY rules of all pairs are
+   * resolved with one bulk query each, and the pairs are then priced in parallel. Each pair is
+   * identified by {@code couponId} or, failing that, {@code couponCode}; a pair that cannot be
+   * applied gets an error instead of failing the batch. Results are in request order.
+   *
+   * @param firstIndex index of the first request within the whole batch, reported in the results
+   */
+  public List<BatchApplyResultDTO> applyCoupons(
+      List<BatchApplyRequestDTO> requests, int firstIndex) {
+    Set<Long> productIds = new HashSet<>();
+    Set<Long> couponIds = new HashSet<>();
+    Set<String> couponCodes = new HashSet<>();
+    for (BatchApplyRequestDTO request : requests) {
+      if (request.getCart() != null && request.getCart().getItems() != null) {
+        for (CartRequestDTO.CartItem item : request.getCart().getItems()) {
+          productIds.add(item.getProductId());
         }
-        message = "Product-wise discount applied!";
       }
+      if (request.getCouponId() != null) {
+        couponIds.add(request.getCouponId());
+      } else if (couponCodeCache.mightExist(request.getCouponCode())) {
+        couponCodes.add(request.getCouponCode());
+      }
+    }
 
-      case BXGY -> {
-        List<BxGyDetail> bxgyDetails = bxGyDetailRepository.findByCouponId(coupon.getId());
-        for (BxGyDetail detail : bxgyDetails) {
-          int buyQuantity = 0;
-          int getQuantity = 0;
-          double getProductPrice = 0;
-
-          for (CartRequestDTO.CartItem item : cartItems) {
-            if (item.getProductId().equals(detail.getBuyProductId())) {
-              buyQuantity = item.getQuantity();
+    Map<Long, Double> prices = new HashMap<>();
+    for (Product product : productRepository.findAllById(productIds)) {
+      prices.put(product.getId(), product.getPrice());
+    }
+    Map<Long, Coupon> couponsById = new HashMap<>();
+    Map<String, Coupon> couponsByCode = new HashMap<>();
+    if (!couponIds.isEmpty()) {
+      couponRepository.findAllById(couponIds).forEach(c -> couponsById.put(c.getId(), c));
+    }
+    if (!couponCodes.isEmpty()) {
+      couponRepository
+          .findByCouponCodeIn(couponCodes)
+          .forEach(c -> couponsByCode.put(c.getCouponCode(), c));
+    }
+    List<Coupon> coupons = new ArrayList<>(couponsById.values());
+    coupons.addAll(couponsByCode.values());
+    Map<Long, List<BxGyDetail>> bxgyRules = bxGyRulesOf(coupons);
+
+    List<Integer> positions = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) positions.add(i);
+    return couponEvaluationPool.evaluateBatch(
+        positions,
+        i -> {
+          BatchApplyRequestDTO request = requests.get(i);
+          BatchApplyResultDTO.BatchApplyResultDTOBuilder result =
+              BatchApplyResultDTO.builder().index(firstIndex + i);
+          try {
+            Coupon coupon =
+                request.getCouponId() != null
+                    ? couponsById.get(request.getCouponId())
+                    : couponsByCode.get(request.getCouponCode());
+            if (coupon == null) {
+              couponMetrics.rejected(null, CouponMetrics.INVALID_CODE);
+              throw new CouponNotFoundException(
+                  request.getCouponId() != null
+                      ? "Coupon not found with ID: " + request.getCouponId()
+                      : "Invalid coupon code");
             }
-            if (item.getProductId().equals(detail.getGetProductId())) {
-              getQuantity = item.getQuantity();
-              Product getProduct =
-                  productRepository
-                      .findById(item.getProductId())
-                      .orElseThrow(
-                          () -> new RuntimeException("Product not found: " + item.getProductId()));
-              getProductPrice = getProduct.getPrice();
+            result.coupon_id(coupon.getId());
+            List<CartRequestDTO.CartItem> cartItems = requireCartItems(request);
+            for (CartRequestDTO.CartItem item : cartItems) {
+              if (!prices.containsKey(item.getProductId())) {
+                throw new RuntimeException("Product not found: " + item.getProductId());
+              }
             }
+            requireRedeemable(coupon);
+
+            CartResponseDTO response =
+                discountCart(
+                    CartKernel.of(cartItems, prices),
+                    coupon,
+                    bxgyRules.getOrDefault(coupon.getId(), List.of()));
+            return result
+                .updated_cart(response.getUpdatedCart())
+                .message(response.getMessage())
+                .build();
+          } catch (RuntimeException e) {
+            return result.error(e.getMessage()).build();
           }
+        });
+  }
 
-          int applicableFreeQty = (buyQuantity / detail.getBuyQuantity()) * detail.getGetQuantity();
-          double discount = applicableFreeQty * getProductPrice;
-          totalDiscount += discount;
+  /** Rejects coupons that are inactive, expired or used up; counts the others as evaluated. */
+  private void requireRedeemable(Coupon coupon) {
+    if (!CouponActivationScheduler.isLive(coupon, LocalDate.now())) {
+      couponMetrics.rejected(coupon.getType(), CouponMetrics.EXPIRED_OR_INACTIVE);
+      throw new CouponNotFoundException("Coupon expired or inactive");
+    }
+    if (couponRedemptionService.isExhausted(coupon)) {
+      couponMetrics.rejected(coupon.getType(), CouponMetrics.LIMIT_REACHED);
+      throw new CouponLimitExceededException("Coupon redemption limit reached");
+    }
+    couponMetrics.evaluated(CouponMetrics.APPLY, coupon.getType());
+  }
 
-          for (CartResponseDTO.ItemResponse item : itemResponses) {
-            if (item.getProductId().equals(detail.getGetProductId())) {
-              item.setQuantity(item.getQuantity() + applicableFreeQty);
-              item.setTotalDiscount(discount);
-            }
-          }
-        }
-        message = "Buy X Get Y discount applied!";
-      }
+  /** Prices the cart with {@code coupon} applied, line by line. */
+  private static CartResponseDTO discountCart(
+      CartKernel cart, Coupon coupon, List<BxGyDetail> bxgyDetails) {
+    CartKernel.Applied applied = cart.apply(coupon, bxgyDetails);
 
-      default -> message = "No discount applied!";
+    List<CartResponseDTO.ItemResponse> itemResponses = new ArrayList<>(cart.lineCount());
+    for (int line = 0; line < cart.lineCount(); line++) {
+      itemResponses.add(
+          new CartResponseDTO.ItemResponse(
+              cart.lineProductId(line),
+              cart.lineQuantity(line) + applied.lineFreeQuantities()[line],
+              CartKernel.amount(cart.linePriceCents(line)),
+              CartKernel.amount(applied.lineDiscountCents()[line])));
     }
 
-    double finalPrice = totalPrice - totalDiscount;
+    String message =
+        switch (coupon.getType()) {
+          case CART_WISE -> "Cart-wise discount applied!";
+          case PRODUCT_WISE -> "Product-wise discount applied!";
+          case BXGY -> "Buy X Get Y discount applied!";
+        };
 
+    long totalDiscount = applied.totalDiscountCents();
     CartResponseDTO.UpdatedCart updatedCart =
-        new CartResponseDTO.UpdatedCart(itemResponses, totalPrice, totalDiscount, finalPrice);
-
+        new CartResponseDTO.UpdatedCart(
+            itemResponses,
+            CartKernel.amount(cart.totalCents()),
+            CartKernel.amount(totalDiscount),
+            CartKernel.amount(cart.totalCents() - totalDiscount));
     return new CartResponseDTO(updatedCart, message);
   }
 
-  public double getProductDiscount(Long productId, int quantity, double price, Long couponId) {
-    Optional<Coupon> optionalCoupon = couponRepository.findById(couponId);
-    if (optionalCoupon.isEmpty()) return 0;
-
-    Coupon coupon = optionalCoupon.get();
-    double discount = 0;
-
-    if (coupon.getType() == CouponType.PRODUCT_WISE && productId.equals(coupon.getProductId())) {
-      discount = (price * quantity * coupon.getDiscount()) / 100.0;
-    }
-
-    return discount;
-  }
-
   public CartResponseDTO applyCouponToCart(Long id, CartRequestDTO cartRequest) {
     Coupon coupon =
         couponRepository
@@ -209,6 +436,32 @@ public class CouponService {
     return couponRepository.findAll(pageable);
   }
 
+  /**
+   * Lists coupons after {@code after} (a cursor from a previous slice, or null for the first one)
+   * using keyset scrolling. {@code sortBy} is ignored when a cursor is given.
+   */
+  public CouponCursorPageDTO getCouponsAfter(String after, int limit, String sortBy) {
+    if (limit < 1 || limit > MAX_CURSOR_LIMIT) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_CURSOR_LIMIT);
+    }
+    CouponCursor cursor = after != null ? CouponCursor.decode(after) : null;
+    String key = cursor != null ? cursor.sortBy() : sortBy;
+    ScrollPosition position = cursor != null ? cursor.position() : ScrollPosition.keyset();
+
+    Window<Coupon> window =
+        couponRepository.findBy(position, CouponCursor.sort(key), Limit.of(limit));
+    List<Coupon> content = window.getContent();
+    String next =
+        window.hasNext() && !content.isEmpty()
+            ? CouponCursor.after(content.get(content.size() - 1), key).encode()
+            : null;
+    return CouponCursorPageDTO.builder()
+        .content(content)
+        .next_cursor(next)
+        .has_next(next != null)
+        .build();
+  }
+
   public Coupon getCouponById(Long id) {
     return couponRepository
         .findById(id)
@@ -216,7 +469,31 @@ public class CouponService {
   }
 
   public Coupon save(Coupon coupon) {
-    return couponRepository.save(coupon);
+    if (coupon.getStartDate() != null
+        && coupon.getExpiryDate() != null
+        && coupon.getStartDate().isAfter(coupon.getExpiryDate())) {
+      throw new IllegalArgumentException("Start date must not be after expiry date");
+    }
+    Coupon saved = couponRepository.save(coupon);
+    bxGyRuleCache.evict(saved.getId());
+    if (!CouponActivationScheduler.isLive(saved, LocalDate.now())) {
+      couponIndex.remove(saved.getId());
+    } else if (couponIndex.get(saved.getId()) != null) {
+      couponIndex.put(saved);
+    } else {
+      // not indexed while it was upcoming or inactive, so its buy products are read again
+      List<Long> buyProductIds = new ArrayList<>();
+      List<BxGyDetail> rules =
+          saved.getType() == CouponType.BXGY ? bxGyRuleCache.getRules(saved.getId()) : List.of();
+      for (BxGyDetail bxgy : rules) {
+        buyProductIds.addAll(buyProductIdsOf(bxgy));
+      }
+      couponIndex.put(saved, buyProductIds);
+    }
+    catalogVersion.couponSaved(saved);
+    couponCodeCache.couponUpdated(saved);
+    couponActivationScheduler.schedule(List.of(saved));
+    return saved;
   }
 
   @Transactional
@@ -224,134 +501,203 @@ public class CouponService {
     if (!couponRepository.existsById(id)) {
       throw new CouponNotFoundException("Coupon not found with ID: " + id);
     }
+    Coupon indexed = couponIndex.get(id);
     bxGyDetailRepository.deleteByCouponId(id);
     couponRepository.deleteById(id);
+    bxGyRuleCache.evict(id);
+    couponIndex.remove(id);
+    catalogVersion.couponRemoved(id);
+    if (indexed != null) couponCodeCache.couponRemoved(indexed);
   }
 
-  public List<Coupon> getApplicableCoupons(CartRequestDTO cartRequest) {
-    List<CartRequestDTO.CartItem> cartItems = cartRequest.getCart().getItems();
+  /**
+   * Finds the applicable coupons for a cart together with the discount each of them gives. The cart
+   * is priced once and every candidate coupon is checked and evaluated in the same pass; the result
+   * is memoized, and only redemption limits are checked again when the same cart comes back.
+   */
+  public ApplicableCouponsResponseDTO evaluateApplicableCoupons(CartRequestDTO cartRequest) {
+    List<CartRequestDTO.CartItem> cartItems = requireCartItems(cartRequest);
+    LocalDate today = LocalDate.now();
+    EvaluationCache.Key key = evaluationCache.applicableKey(cartItems, today);
+    List<EvaluationCache.Applicable> qualifying = evaluationCache.getApplicable(key);
+    if (qualifying == null) {
+      qualifying = qualifyingCoupons(cartItems, today);
+      evaluationCache.putApplicable(key, qualifying);
+    }
 
-    if (cartItems == null || cartItems.isEmpty()) {
-      throw new IllegalArgumentException("Cart items cannot be empty");
+    List<ApplicableCouponsResponseDTO.CouponInfo> coupons = new ArrayList<>(qualifying.size());
+    for (EvaluationCache.Applicable coupon : qualifying) {
+      if (!couponRedemptionService.isExhausted(coupon.coupon())) coupons.add(coupon.info());
     }
+    return ApplicableCouponsResponseDTO.builder().applicable_coupons(coupons).build();
+  }
 
-    List<Coupon> allCoupons = couponRepository.findAll();
-    LocalDate today = LocalDate.now();
+  /** Every coupon the cart qualifies for, with its discount, before redemption limits. */
+  private List<EvaluationCache.Applicable> qualifyingCoupons(
+      List<CartRequestDTO.CartItem> cartItems, LocalDate today) {
+    Timer.Sample stage = couponMetrics.start();
+    Map<Long, Double> prices = resolvePrices(cartItems);
+    couponMetrics.stop(stage, CouponMetrics.APPLICABLE, CouponMetrics.PRODUCT_LOOKUP);
+    CartKernel cart = CartKernel.of(cartItems, prices);
+
+    List<Coupon> candidates = findCandidates(prices.keySet(), CartKernel.amount(cart.totalCents()));
+    Map<Long, List<BxGyDetail>> bxgyRules = loadBxGyRules(candidates);
+
+    stage = couponMetrics.start();
+    List<EvaluationCache.Applicable> qualifying =
+        couponEvaluationPool.evaluate(
+            candidates,
+            coupon -> {
+              couponMetrics.evaluated(CouponMetrics.APPLICABLE, coupon.getType());
+              List<BxGyDetail> bxgyDetails = bxgyRules.getOrDefault(coupon.getId(), List.of());
+              if (!qualifies(coupon, cart, bxgyDetails, today)) return null;
+
+              return new EvaluationCache.Applicable(
+                  coupon,
+                  ApplicableCouponsResponseDTO.CouponInfo.builder()
+                      .coupon_id(coupon.getId())
+                      .type(coupon.getType().label())
+                      .discount(CartKernel.amount(cart.discountCents(coupon, bxgyDetails)))
+                      .build());
+            });
+    couponMetrics.stop(stage, CouponMetrics.APPLICABLE, CouponMetrics.DISCOUNT);
+    return qualifying;
+  }
 
-    List<Coupon> applicableCoupons = new ArrayList<>();
+  /**
+   * Finds the combination of applicable coupons that gives the cheapest cart. Stacked coupons are
+   * applied in descending priority, each one on the amount the previous coupons left.
+   */
+  public BestDealResponseDTO findBestDeal(CartRequestDTO cartRequest) {
+    List<CartRequestDTO.CartItem> cartItems = requireCartItems(cartRequest);
+    Map<Long, Double> prices = resolvePrices(cartItems);
+    CartKernel cart = CartKernel.of(cartItems, prices);
+    LocalDate today = LocalDate.now();
 
-    double totalPrice = 0.0;
-    for (CartRequestDTO.CartItem item : cartItems) {
-      Product product =
-          productRepository
-              .findById(item.getProductId())
-              .orElseThrow(() -> new RuntimeException("Product not found: " + item.getProductId()));
-      totalPrice += product.getPrice() * item.getQuantity();
+    List<Coupon> candidates =
+        couponIndex.candidates(prices.keySet(), CartKernel.amount(cart.totalCents()));
+    Map<Long, List<BxGyDetail>> bxgyRules = bxGyRulesOf(candidates);
+
+    List<BestDealSearch.Option> options =
+        couponEvaluationPool.evaluate(
+            candidates,
+            coupon -> {
+              List<BxGyDetail> bxgyDetails = bxgyRules.getOrDefault(coupon.getId(), List.of());
+              if (!isApplicable(coupon, cart, bxgyDetails, today)) return null;
+              return new BestDealSearch.Option(
+                  coupon, CartKernel.amount(cart.discountCents(coupon, bxgyDetails)));
+            });
+
+    BestDealSearch.Result result =
+        bestDealSearch.search(
+            options,
+            stack ->
+                CartKernel.amount(
+                    cart.applyStack(byPriority(stack), bxgyRules).totalDiscountCents()));
+
+    List<Coupon> stack = byPriority(result.coupons());
+    CartKernel.Stacked stacked = cart.applyStack(stack, bxgyRules);
+
+    List<CartResponseDTO.ItemResponse> items = new ArrayList<>(cart.productCount());
+    for (int i = 0; i < cart.productCount(); i++) {
+      items.add(
+          new CartResponseDTO.ItemResponse(
+              cart.productId(i),
+              cart.quantity(i) + stacked.freeQuantities()[i],
+              CartKernel.amount(cart.priceCents(i)),
+              CartKernel.amount(stacked.discountCents()[i])));
     }
+    long totalDiscount = stacked.totalDiscountCents();
+
+    return BestDealResponseDTO.builder()
+        .coupon_ids(stack.stream().map(Coupon::getId).toList())
+        .updated_cart(
+            new CartResponseDTO.UpdatedCart(
+                items,
+                CartKernel.amount(cart.totalCents()),
+                CartKernel.amount(totalDiscount),
+                CartKernel.amount(cart.totalCents() - totalDiscount)))
+        .search_complete(result.complete())
+        .build();
+  }
 
-    for (Coupon coupon : allCoupons) {
-      if (!Boolean.TRUE.equals(coupon.getIsActive())) continue;
-      if (coupon.getExpiryDate() != null && coupon.getExpiryDate().isBefore(today)) continue;
+  private static List<Coupon> byPriority(List<Coupon> coupons) {
+    List<Coupon> ordered = new ArrayList<>(coupons);
+    ordered.sort(
+        Comparator.comparing((Coupon coupon) -> Objects.requireNonNullElse(coupon.getPriority(), 0))
+            .reversed()
+            .thenComparing(Coupon::getId));
+    return ordered;
+  }
 
-      switch (coupon.getType()) {
-        case CART_WISE -> {
-          if (coupon.getThreshold() == null || totalPrice >= coupon.getThreshold()) {
-            applicableCoupons.add(coupon);
-          }
-        }
+  private List<Coupon> findCandidates(Collection<Long> productIds, double totalPrice) {
+    Timer.Sample stage = couponMetrics.start();
+    List<Coupon> candidates = couponIndex.candidates(productIds, totalPrice);
+    couponMetrics.stop(stage, CouponMetrics.APPLICABLE, CouponMetrics.COUPON_LOOKUP);
+    return candidates;
+  }
 
-        case PRODUCT_WISE -> {
-          boolean productExists =
-              cartItems.stream()
-                  .anyMatch(item -> item.getProductId().equals(coupon.getProductId()));
-          if (productExists) applicableCoupons.add(coupon);
-        }
+  private Map<Long, List<BxGyDetail>> loadBxGyRules(List<Coupon> candidates) {
+    Timer.Sample stage = couponMetrics.start();
+    Map<Long, List<BxGyDetail>> rules = bxGyRulesOf(candidates);
+    couponMetrics.stop(stage, CouponMetrics.APPLICABLE, CouponMetrics.BXGY_RULES);
+    return rules;
+  }
 
-        case BXGY -> {
-          List<BxGyDetail> bxgyDetails = bxGyDetailRepository.findByCouponId(coupon.getId());
-          boolean applicable =
-              bxgyDetails.stream()
-                  .anyMatch(
-                      detail ->
-                          cartItems.stream()
-                              .anyMatch(
-                                  item ->
-                                      item.getProductId().equals(detail.getBuyProductId())
-                                          && item.getQuantity() >= detail.getBuyQuantity()));
-          if (applicable) applicableCoupons.add(coupon);
-        }
+  private List<CartRequestDTO.CartItem> requireCartItems(CartRequestDTO cartRequest) {
+    if (cartRequest.getCart() == null) {
+      throw new IllegalArgumentException("Cart items cannot be empty");
+    }
+    List<CartRequestDTO.CartItem> cartItems = cartRequest.getCart().getItems();
 
-        default -> {}
-      }
+    if (cartItems == null || cartItems.isEmpty()) {
+      throw new IllegalArgumentException("Cart items cannot be empty");
     }
+    return cartItems;
+  }
 
-    return applicableCoupons;
+  /** Loads the rules of every BXGY coupon among {@code coupons} in one batch. */
+  private Map<Long, List<BxGyDetail>> bxGyRulesOf(List<Coupon> coupons) {
+    List<Long> bxgyCouponIds = new ArrayList<>();
+    for (Coupon coupon : coupons) {
+      if (coupon.getType() == CouponType.BXGY) bxgyCouponIds.add(coupon.getId());
+    }
+    return bxgyCouponIds.isEmpty() ? Map.of() : bxGyRuleCache.getRules(bxgyCouponIds);
   }
 
-  public double getApplicableCoupons(Coupon coupon, CartRequestDTO cartRequest) {
-    double totalCartValue =
-        cartRequest.getCart().getItems().stream()
-            .mapToDouble(
-                item -> {
-                  Product product =
-                      productRepository
-                          .findById(item.getProductId())
-                          .orElseThrow(
-                              () ->
-                                  new RuntimeException(
-                                      "Product not found: " + item.getProductId()));
-                  return product.getPrice() * item.getQuantity();
-                })
-            .sum();
-
-    double discount = 0.0;
-
-    switch (coupon.getType()) {
-      case CART_WISE -> {
-        if (coupon.getThreshold() == null || totalCartValue >= coupon.getThreshold()) {
-          discount = totalCartValue * (coupon.getDiscount() / 100);
-        }
-      }
+  private boolean isApplicable(
+      Coupon coupon, CartKernel cart, List<BxGyDetail> bxgyDetails, LocalDate today) {
+    return qualifies(coupon, cart, bxgyDetails, today)
+        && !couponRedemptionService.isExhausted(coupon);
+  }
 
-      case PRODUCT_WISE -> {
-        for (CartRequestDTO.CartItem item : cartRequest.getCart().getItems()) {
-          if (item.getProductId().equals(coupon.getProductId())) {
-            Product product =
-                productRepository
-                    .findById(item.getProductId())
-                    .orElseThrow(
-                        () -> new RuntimeException("Product not found: " + item.getProductId()));
-            discount += (product.getPrice() * item.getQuantity()) * (coupon.getDiscount() / 100);
-          }
-        }
-      }
+  /** Whether the coupon is live today and the cart meets its conditions; limits are not checked. */
+  private static boolean qualifies(
+      Coupon coupon, CartKernel cart, List<BxGyDetail> bxgyDetails, LocalDate today) {
+    if (!CouponActivationScheduler.isLive(coupon, today)) return false;
 
-      case BXGY -> {
-        List<BxGyDetail> bxgyDetails = bxGyDetailRepository.findByCouponId(coupon.getId());
-        for (BxGyDetail detail : bxgyDetails) {
-          int buyQty = 0;
-          double getProductPrice = 0;
+    return cart.qualifies(coupon, bxgyDetails);
+  }
 
-          for (CartRequestDTO.CartItem item : cartRequest.getCart().getItems()) {
-            if (item.getProductId().equals(detail.getBuyProductId())) {
-              buyQty = item.getQuantity();
-            }
-            if (item.getProductId().equals(detail.getGetProductId())) {
-              Product getProduct =
-                  productRepository
-                      .findById(item.getProductId())
-                      .orElseThrow(
-                          () -> new RuntimeException("Product not found: " + item.getProductId()));
-              getProductPrice = getProduct.getPrice();
-            }
-          }
+  /**
+   * Resolves the catalog price of every product in the cart with a single {@code findAllById}
+   * query, so evaluation never goes back to the database per cart line.
+   */
+  private Map<Long, Double> resolvePrices(List<CartRequestDTO.CartItem> cartItems) {
+    Set<Long> productIds = new LinkedHashSet<>();
+    for (CartRequestDTO.CartItem item : cartItems) {
+      productIds.add(item.getProductId());
+    }
 
-          int applicableFreeQty = (buyQty / detail.getBuyQuantity()) * detail.getGetQuantity();
-          discount += applicableFreeQty * getProductPrice;
-        }
+    Map<Long, Double> prices = new HashMap<>();
+    for (Product product : productRepository.findAllById(productIds)) {
+      prices.put(product.getId(), product.getPrice());
+    }
+    for (Long productId : productIds) {
+      if (!prices.containsKey(productId)) {
+        throw new RuntimeException("Product not found: " + productId);
       }
     }
-
-    return discount;
+    return prices;
   }
 }
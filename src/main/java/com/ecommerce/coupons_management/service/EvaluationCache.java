@@ -0,0 +1,162 @@
+package com.ecommerce.coupons_management.service;
+
+import com.ecommerce.coupons_management.dto.ApplicableCouponsResponseDTO;
+import com.ecommerce.coupons_management.dto.CartRequestDTO;
+import com.ecommerce.coupons_management.dto.CartResponseDTO;
+import com.ecommerce.coupons_management.model.Coupon;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Memoizes cart evaluations, so a cart evaluated again unchanged (a refresh, the checkout step, a
+ * payment retry) skips every lookup and the discount math.
+ *
+ * <p>Keys hold the cart's product/quantity pairs together with the catalog and product versions of
+ * {@link CatalogVersion} and the current day. Any write to a coupon, BXGY rule or product moves a
+ * version, so earlier entries are never hit again; they age out by size ({@code
+ * coupons.evaluation.cache.max-size}, default 10000 per operation, 0 disables the cache) or time
+ * ({@code coupons.evaluation.cache.ttl-seconds}, default 60). Redemption limits change without a
+ * write and must be checked by callers on every hit. Hits, misses and evictions are published as
+ * {@code cache.*} meters tagged {@code cache=coupons.apply} and {@code cache=coupons.applicable}.
+ *
+ * <p>Keys must be taken before the evaluation reads anything, so a concurrent write can only make
+ * an entry's key older than its content.
+ */
+@Component
+public class EvaluationCache {
+
+  /** A cart priced with one coupon. */
+  record Applied(Coupon coupon, CartResponseDTO response) {}
+
+  /** A coupon the cart qualifies for, before redemption limits, with the discount it gives. */
+  record Applicable(Coupon coupon, ApplicableCouponsResponseDTO.CouponInfo info) {}
+
+  static final class Key {
+    private final String couponCode;
+    private final long[] cart;
+    private final long catalog;
+    private final long products;
+    private final long day;
+    private final int hash;
+
+    private Key(String couponCode, long[] cart, long catalog, long products, long day) {
+      this.couponCode = couponCode;
+      this.cart = cart;
+      this.catalog = catalog;
+      this.products = products;
+      this.day = day;
+      int h = Objects.hashCode(couponCode);
+      h = 31 * h + Arrays.hashCode(cart);
+      h = 31 * h + Long.hashCode(catalog);
+      h = 31 * h + Long.hashCode(products);
+      this.hash = 31 * h + Long.hashCode(day);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key other
+          && hash == other.hash
+          && catalog == other.catalog
+          && products == other.products
+          && day == other.day
+          && Objects.equals(couponCode, other.couponCode)
+          && Arrays.equals(cart, other.cart);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private final CatalogVersion catalogVersion;
+  private final Cache<Key, Applied> applied;
+  private final Cache<Key, List<Applicable>> applicable;
+
+  public EvaluationCache(
+      CatalogVersion catalogVersion,
+      @Value("${coupons.evaluation.cache.max-size:10000}") long maxSize,
+      @Value("${coupons.evaluation.cache.ttl-seconds:60}") long ttlSeconds,
+      MeterRegistry meterRegistry) {
+    this.catalogVersion = catalogVersion;
+    if (maxSize <= 0) {
+      this.applied = null;
+      this.applicable = null;
+      return;
+    }
+    this.applied = build(maxSize, ttlSeconds);
+    this.applicable = build(maxSize, ttlSeconds);
+    CaffeineCacheMetrics.monitor(meterRegistry, applied, "coupons.apply");
+    CaffeineCacheMetrics.monitor(meterRegistry, applicable, "coupons.applicable");
+  }
+
+  private static <V> Cache<Key, V> build(long maxSize, long ttlSeconds) {
+    return Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Key of applying {@code couponCode} to the cart. Lines keep their order and are not merged,
+   * since the response prices the cart line by line.
+   */
+  Key applyKey(String couponCode, List<CartRequestDTO.CartItem> cartItems, LocalDate today) {
+    long[] cart = new long[cartItems.size() * 2];
+    for (int i = 0; i < cartItems.size(); i++) {
+      CartRequestDTO.CartItem item = cartItems.get(i);
+      cart[2 * i] = item.getProductId();
+      cart[2 * i + 1] = item.getQuantity();
+    }
+    return key(couponCode, cart, today);
+  }
+
+  /**
+   * Key of the applicable coupons of the cart. Quantities are summed per product and products are
+   * sorted, so every cart with the same contents shares one entry.
+   */
+  Key applicableKey(List<CartRequestDTO.CartItem> cartItems, LocalDate today) {
+    SortedMap<Long, Long> quantities = new TreeMap<>();
+    for (CartRequestDTO.CartItem item : cartItems) {
+      quantities.merge(item.getProductId(), (long) item.getQuantity(), Long::sum);
+    }
+    long[] cart = new long[quantities.size() * 2];
+    int i = 0;
+    for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+      cart[i++] = entry.getKey();
+      cart[i++] = entry.getValue();
+    }
+    return key(null, cart, today);
+  }
+
+  private Key key(String couponCode, long[] cart, LocalDate today) {
+    return new Key(
+        couponCode, cart, catalogVersion.catalog(), catalogVersion.products(), today.toEpochDay());
+  }
+
+  /** The cached result, or null on a miss. */
+  Applied getApplied(Key key) {
+    return applied != null ? applied.getIfPresent(key) : null;
+  }
+
+  void putApplied(Key key, Applied result) {
+    if (applied != null) applied.put(key, result);
+  }
+
+  /** The cached result, or null on a miss. */
+  List<Applicable> getApplicable(Key key) {
+    return applicable != null ? applicable.getIfPresent(key) : null;
+  }
+
+  void putApplicable(Key key, List<Applicable> result) {
+    if (applicable != null) applicable.put(key, List.copyOf(result));
+  }
+}
@@ -0,0 +1,117 @@
+-- Tables as Hibernate mapped them before migrations were introduced, plus indexes for the
+-- queries of CouponRepository and BxGyDetailRepository. Indexes are created before the foreign
+-- keys, so databases that index foreign keys on their own reuse them instead of adding more.
+
+create sequence coupons_seq start with 1 increment by 50;
+create sequence bxgy_details_seq start with 1 increment by 50;
+create sequence coupon_redemptions_seq start with 1 increment by 50;
+
+create table products (
+    id bigint generated by default as identity,
+    name varchar(255),
+    price float(53) not null,
+    primary key (id)
+);
+
+create table coupons (
+    id bigint not null,
+    coupon_code varchar(255) not null,
+    type enum ('BXGY', 'CART_WISE', 'PRODUCT_WISE'),
+    discount float(53),
+    is_active boolean,
+    start_date date,
+    expiry_date date,
+    threshold float(53),
+    product_id bigint,
+    repetition_limit integer,
+    exclusive boolean,
+    priority integer,
+    max_redemptions integer,
+    max_redemptions_per_customer integer,
+    redemption_count bigint,
+    version bigint,
+    primary key (id),
+    constraint uk_coupons_coupon_code unique (coupon_code)
+);
+
+create table bxgy_details (
+    id bigint not null,
+    coupon_id bigint,
+    buy_product_id bigint,
+    buy_quantity integer,
+    get_product_id bigint,
+    get_quantity integer,
+    repetition_limit integer,
+    primary key (id)
+);
+
+create table bxgy_buy_products (
+    bxgy_detail_id bigint not null,
+    product_id bigint,
+    quantity integer
+);
+
+create table bxgy_get_products (
+    bxgy_detail_id bigint not null,
+    product_id bigint,
+    quantity integer
+);
+
+create table coupon_redemptions (
+    id bigint not null,
+    coupon_id bigint not null,
+    customer_id varchar(255),
+    redeemed_at timestamp(6),
+    primary key (id)
+);
+
+create table coupon_code_blocks (
+    id bigint generated by default as identity,
+    reserved_at timestamp(6),
+    primary key (id)
+);
+
+create table carts (
+    id bigint generated by default as identity,
+    total_price float(53) not null,
+    primary key (id)
+);
+
+create table cart_items (
+    id bigint generated by default as identity,
+    cart_id bigint,
+    product_id bigint,
+    quantity integer not null,
+    primary key (id)
+);
+
+-- CouponRepository#findActiveExpiredIds: is_active = true and expiry_date < :today
+create index idx_coupons_active_expiry on coupons (is_active, expiry_date);
+
+-- cursor listing sorted by expiry date: (expiry_date, id) > (:expiryDate, :id)
+create index idx_coupons_expiry_id on coupons (expiry_date, id);
+
+-- BxGyDetailRepository#findByCouponId, #findByCouponIdIn and #deleteByCouponId
+create index idx_bxgy_details_coupon on bxgy_details (coupon_id);
+
+-- buy and get sets, fetched by subselect on the rules just loaded
+create index idx_bxgy_buy_products_detail on bxgy_buy_products (bxgy_detail_id);
+create index idx_bxgy_get_products_detail on bxgy_get_products (bxgy_detail_id);
+
+create index idx_cart_items_cart on cart_items (cart_id);
+create index idx_cart_items_product on cart_items (product_id);
+
+alter table bxgy_details
+    add constraint fk_bxgy_details_coupon foreign key (coupon_id) references coupons;
+
+alter table bxgy_buy_products
+    add constraint fk_bxgy_buy_products_detail foreign key (bxgy_detail_id) references bxgy_details;
+
+alter table bxgy_get_products
+    add constraint fk_bxgy_get_products_detail foreign key (bxgy_detail_id) references bxgy_details;
+
+alter table cart_items
+    add constraint fk_cart_items_cart foreign key (cart_id) references carts;
+
+alter table cart_items
+    add constraint fk_cart_items_product foreign key (product_id) references products;
@@ -0,0 +1,10 @@
+-- 🛒 Sample Products
+INSERT INTO products (id, name, price) VALUES (1, 'Laptop', 50.0);
+INSERT INTO products (id, name, price) VALUES (2, 'Mouse', 30.0);
+INSERT INTO products (id, name, price) VALUES (3, 'Keyboard', 25.0);
+
+-- 🎟️ Sample Coupons
+INSERT INTO coupons (id, coupon_code, type, discount, is_active, expiry_date, threshold, product_id, version)
+VALUES
+(NEXT VALUE FOR coupons_seq, 'CART10', 'CART_WISE', 10.0, TRUE, '2030-12-31', 100.0, NULL, 0),
+(NEXT VALUE FOR coupons_seq, 'PROD20', 'PRODUCT_WISE', 20.0, TRUE, '2030-12-31', NULL, 1, 0);
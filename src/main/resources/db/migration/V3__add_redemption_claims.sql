@@ -0,0 +1,20 @@
+-- Uses of each coupon's maxRedemptions claimed by application instances, in blocks, before they
+-- hand them out. Claims only succeed while they stay within the limit, so the instances together
+-- never sell more than it allows. Not mapped by the Coupon entity, so saving a coupon never
+-- overwrites it.
+alter table coupons add column claimed_count bigint;
+update coupons set claimed_count = coalesce(redemption_count, 0);
+
+-- Reserved and confirmed uses per customer, for maxRedemptionsPerCustomer.
+create table coupon_customer_uses (
+    coupon_id bigint not null,
+    customer_id varchar(255) not null,
+    uses integer not null,
+    primary key (coupon_id, customer_id)
+);
+
+insert into coupon_customer_uses (coupon_id, customer_id, uses)
+select coupon_id, customer_id, count(*)
+from coupon_redemptions
+where customer_id is not null
+group by coupon_id, customer_id;
@@ -0,0 +1,206 @@
+package com.ecommerce.coupons_management;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.exception.CouponNotFoundException;
+import com.ecommerce.coupons_management.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.*;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Query budgets per endpoint: the number of JDBC statements a request may prepare, counted with
+ * Hibernate statistics. Each budget is checked with carts of 1 to {@value #MAX_LINES} lines, so a
+ * per-line or per-coupon query fails the build.
+ */
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:query-budget",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetIntegrationTest {
+
+  private static final int MAX_LINES = 50;
+  private static final long FIRST_PRODUCT = 100;
+
+  @Autowired private MockMvc mockMvc;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private CouponService couponService;
+  @Autowired private BxGyRuleCache bxGyRuleCache;
+  @Autowired private CouponCodeCache couponCodeCache;
+
+  private Statistics statistics;
+  private long bxgyCouponId;
+
+  @BeforeAll
+  void setUpCatalog() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    for (long id = FIRST_PRODUCT; id < FIRST_PRODUCT + MAX_LINES; id++) {
+      jdbcTemplate.update(
+          "INSERT INTO products (id, name, price) VALUES (?, ?, ?)", id, "Product " + id, 10.0);
+    }
+
+    List<CouponRequestDTO> requests = new ArrayList<>();
+    for (long id = FIRST_PRODUCT; id < FIRST_PRODUCT + MAX_LINES; id++) {
+      requests.add(productWise(id));
+      requests.add(bxgy(id, id + 1));
+    }
+    requests.add(cartWise());
+    couponService.addCoupons(requests);
+    bxgyCouponId = couponService.addCoupon(bxgy(FIRST_PRODUCT, FIRST_PRODUCT + 1)).getId();
+  }
+
+  @BeforeEach
+  void coldCaches() {
+    bxGyRuleCache.clear();
+    couponCodeCache.clear();
+  }
+
+  @Test
+  void testApplicableCouponsBudget() throws Exception {
+    // product prices, BXGY rules, and one query per rule collection (buy and get products)
+    assertBudget(4, lines -> post("/api/coupons/applicable-coupons").content(cart(lines)));
+  }
+
+  @Test
+  void testBestDealBudget() throws Exception {
+    assertBudget(4, lines -> post("/api/coupons/best-deal").content(cart(lines)));
+  }
+
+  @Test
+  void testApplyCouponBudget() throws Exception {
+    // coupon by id, product prices, coupon by code, BXGY rules with their two collections
+    assertBudget(
+        6, lines -> post("/api/coupons/apply-coupon/" + bxgyCouponId).content(cart(lines)));
+  }
+
+  @Test
+  void testUnknownCouponCodeIsRefusedWithoutQuery() throws Exception {
+    CartRequestDTO request = objectMapper.readValue(cart(1), CartRequestDTO.class);
+    request.setCouponCode("COUPON-NOSUCHCODE");
+
+    statistics.clear();
+    assertThatThrownBy(() -> couponService.applyCoupon(request))
+        .isInstanceOf(CouponNotFoundException.class);
+
+    // product prices only
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void testCursorListingBudget() throws Exception {
+    long statements = statementsFor(get("/api/coupons").param("limit", "50"));
+
+    assertThat(statements).isEqualTo(1);
+  }
+
+  @Test
+  void testBulkCreateBudget() throws Exception {
+    List<CouponRequestDTO> requests = new ArrayList<>();
+    for (int i = 0; i < 200; i++) requests.add(cartWise());
+
+    long statements =
+        statementsFor(
+            post("/api/coupons/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)));
+
+    // one insert batch per 50 rows plus pooled sequence calls, never one statement per coupon
+    assertThat(statements).isLessThanOrEqualTo(10);
+  }
+
+  private interface CartRequest {
+    MockHttpServletRequestBuilder build(int lines) throws Exception;
+  }
+
+  /** Checks the budget and that the count does not grow with the size of the cart. */
+  private void assertBudget(long budget, CartRequest request) throws Exception {
+    Map<Integer, Long> counts = new LinkedHashMap<>();
+    for (int lines : List.of(1, 10, MAX_LINES)) {
+      bxGyRuleCache.clear();
+      couponCodeCache.clear();
+      counts.put(
+          lines, statementsFor(request.build(lines).contentType(MediaType.APPLICATION_JSON)));
+    }
+
+    assertThat(counts.values())
+        .as("statements per cart size %s", counts)
+        .allMatch(c -> c <= budget);
+    assertThat(new HashSet<>(counts.values())).as("statements per cart size %s", counts).hasSize(1);
+  }
+
+  private long statementsFor(RequestBuilder request) throws Exception {
+    statistics.clear();
+    mockMvc.perform(request).andExpect(status().isOk());
+    return statistics.getPrepareStatementCount();
+  }
+
+  private String cart(int lines) throws Exception {
+    List<CartRequestDTO.CartItem> items = new ArrayList<>();
+    for (long id = FIRST_PRODUCT; id < FIRST_PRODUCT + lines; id++) {
+      CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
+      item.setProductId(id);
+      item.setQuantity(3);
+      items.add(item);
+    }
+    CartRequestDTO.Cart cart = new CartRequestDTO.Cart();
+    cart.setItems(items);
+    CartRequestDTO request = new CartRequestDTO();
+    request.setCart(cart);
+    return objectMapper.writeValueAsString(request);
+  }
+
+  private static CouponRequestDTO cartWise() {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.CART_WISE);
+    CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+    details.setThreshold(10.0);
+    details.setDiscount(5.0);
+    request.setDetails(details);
+    return request;
+  }
+
+  private static CouponRequestDTO productWise(long productId) {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.PRODUCT_WISE);
+    CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+    details.setProductId(String.valueOf(productId));
+    details.setDiscount(10.0);
+    request.setDetails(details);
+    return request;
+  }
+
+  private static CouponRequestDTO bxgy(long buyProductId, long getProductId) {
+    CouponRequestDTO.ProductQuantity buy = new CouponRequestDTO.ProductQuantity();
+    buy.setProductId(buyProductId);
+    buy.setQuantity(2);
+    CouponRequestDTO.ProductQuantity get = new CouponRequestDTO.ProductQuantity();
+    get.setProductId(getProductId);
+    get.setQuantity(1);
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.BXGY);
+    CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+    details.setBuyProducts(List.of(buy));
+    details.setGetProducts(List.of(get));
+    request.setDetails(details);
+    return request;
+  }
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.coupons_management;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks with H2's {@code EXPLAIN} that the lookups of the repositories are served by the indexes
+ * of the Flyway migrations instead of scanning whole tables. The statements mirror the SQL
+ * Hibernate generates for each repository method.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-plan")
+class QueryPlanIntegrationTest {
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private String plan(String sql, Object... args) {
+    return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+  }
+
+  @Test
+  void testCouponByCodeUsesUniqueIndex() {
+    // CouponRepository#findByCouponCode
+    assertThat(plan("select * from coupons where coupon_code = ?", "CART10"))
+        .contains("UK_COUPONS_COUPON_CODE");
+  }
+
+  @Test
+  void testActiveExpiredCouponsUseActiveExpiryIndex() {
+    // CouponRepository#findActiveExpiredIds
+    assertThat(
+            plan(
+                "select id from coupons where is_active = true and expiry_date < ?",
+                LocalDate.now()))
+        .contains("IDX_COUPONS_ACTIVE_EXPIRY");
+  }
+
+  @Test
+  void testCursorByExpiryDateIsReadInIndexOrder() {
+    // CouponRepository#findBy with CouponCursor sorted by expiry date
+    assertThat(
+            plan(
+                "select * from coupons where expiry_date > ? or (expiry_date = ? and id > ?)"
+                    + " order by expiry_date, id fetch first 20 rows only",
+                LocalDate.now(),
+                LocalDate.now(),
+                1L))
+        .contains("IDX_COUPONS_EXPIRY_ID")
+        .contains("index sorted");
+  }
+
+  @Test
+  void testBxGyRulesByCouponUseCouponIndex() {
+    // BxGyDetailRepository#findByCouponId, #findByCouponIdIn and #deleteByCouponId
+    assertThat(plan("select * from bxgy_details where coupon_id = ?", 1L))
+        .contains("IDX_BXGY_DETAILS_COUPON");
+    assertThat(plan("select * from bxgy_details where coupon_id in (?, ?)", 1L, 2L))
+        .contains("IDX_BXGY_DETAILS_COUPON");
+  }
+
+  @Test
+  void testBuyAndGetSetsUseRuleIndexes() {
+    // subselect fetch of BxGyDetail#buyProducts and #getProducts
+    String rules = "(select id from bxgy_details where coupon_id in (?, ?))";
+    assertThat(plan("select * from bxgy_buy_products where bxgy_detail_id in " + rules, 1L, 2L))
+        .contains("IDX_BXGY_BUY_PRODUCTS_DETAIL");
+    assertThat(plan("select * from bxgy_get_products where bxgy_detail_id in " + rules, 1L, 2L))
+        .contains("IDX_BXGY_GET_PRODUCTS_DETAIL");
+  }
+}
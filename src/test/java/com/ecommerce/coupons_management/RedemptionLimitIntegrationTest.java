@@ -0,0 +1,94 @@
+package com.ecommerce.coupons_management;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ecommerce.coupons_management.dto.CouponRequestDTO;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.exception.CouponLimitExceededException;
+import com.ecommerce.coupons_management.repository.CouponRepository;
+import com.ecommerce.coupons_management.service.*;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Redemption limits shared by two application instances through the database: a second {@link
+ * CouponRedemptionService} stands in for another instance using the same tables.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:redemption-limit")
+class RedemptionLimitIntegrationTest {
+
+  @Autowired private CouponService couponService;
+  @Autowired private CouponRedemptionService couponRedemptionService;
+  @Autowired private CouponIndex couponIndex;
+  @Autowired private CouponRepository couponRepository;
+  @Autowired private CouponBatchWriter couponBatchWriter;
+  @Autowired private CatalogVersion catalogVersion;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private Long coupon(Integer maxRedemptions, Integer maxRedemptionsPerCustomer) {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.CART_WISE);
+    request.setMaxRedemptions(maxRedemptions);
+    request.setMaxRedemptionsPerCustomer(maxRedemptionsPerCustomer);
+    return couponService.addCoupon(request).getId();
+  }
+
+  private CouponRedemptionService otherInstance() {
+    return new CouponRedemptionService(
+        couponIndex, couponRepository, couponBatchWriter, catalogVersion, 300, 20);
+  }
+
+  @Test
+  void testInstancesTogetherNeverOversell() {
+    Long couponId = coupon(30, null);
+    CouponRedemptionService other = otherInstance();
+
+    int granted = 0;
+    for (int i = 0; i < 50; i++) {
+      for (CouponRedemptionService instance : List.of(couponRedemptionService, other)) {
+        try {
+          instance.reserve(couponId, null);
+          granted++;
+        } catch (CouponLimitExceededException e) {
+          // limit reached
+        }
+      }
+    }
+
+    assertThat(granted).isEqualTo(30);
+    assertThat(claimedCount(couponId)).isEqualTo(30);
+  }
+
+  @Test
+  void testUnusedClaimsAreGivenBack() {
+    Long couponId = coupon(100, null);
+    CouponRedemptionService other = otherInstance();
+
+    other.confirm(other.reserve(couponId, null).getToken());
+    other.close();
+
+    assertThat(claimedCount(couponId)).isEqualTo(1);
+  }
+
+  @Test
+  void testPerCustomerLimitHoldsAcrossInstances() {
+    Long couponId = coupon(null, 1);
+    CouponRedemptionService other = otherInstance();
+
+    String token = couponRedemptionService.reserve(couponId, "alice").getToken();
+    assertThrows(CouponLimitExceededException.class, () -> other.reserve(couponId, "alice"));
+    assertThat(other.reserve(couponId, "bob").getToken()).isNotNull();
+
+    couponRedemptionService.cancel(token);
+    assertThat(other.reserve(couponId, "alice").getToken()).isNotNull();
+  }
+
+  private long claimedCount(Long couponId) {
+    return jdbcTemplate.queryForObject(
+        "select claimed_count from coupons where id = ?", Long.class, couponId);
+  }
+}
@@ -0,0 +1,150 @@
+package com.ecommerce.coupons_management;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.service.CouponService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Throughput and p99 latency of the applicable-coupons endpoint with platform threads and with the
+ * {@code virtual-threads} profile, under the same number of concurrent clients. Both modes share a
+ * Tomcat thread cap and connection pool size, so the comparison isolates the thread model. Run with
+ * {@code mvn -Pload-test test} on Java 21.
+ */
+@Tag("load")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ThreadingModeLoadTest {
+
+  private static final int CLIENTS = 400;
+  private static final int WARMUP_REQUESTS = 5_000;
+  private static final int REQUESTS = 40_000;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private record Result(
+      String mode, double requestsPerSecond, double p50Millis, double p99Millis) {}
+
+  @Test
+  void testCompareThreadingModes() throws Exception {
+    Result platform = run("platform");
+    Result virtual = run("virtual-threads");
+
+    System.out.printf("%-16s %12s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms");
+    for (Result result : List.of(platform, virtual)) {
+      System.out.printf(
+          "%-16s %12.0f %10.2f %10.2f%n",
+          result.mode(), result.requestsPerSecond(), result.p50Millis(), result.p99Millis());
+    }
+    assertThat(virtual.requestsPerSecond()).isPositive();
+  }
+
+  private Result run(String mode) throws Exception {
+    SpringApplicationBuilder builder =
+        new SpringApplicationBuilder(CouponsManagementApplication.class)
+            .properties(
+                "server.port=0",
+                "management.server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "server.tomcat.threads.max=50",
+                "coupons.db.pool-size=20",
+                "spring.datasource.hikari.maximum-pool-size=20",
+                "logging.level.root=WARN");
+    if (mode.equals("virtual-threads")) builder.profiles(mode);
+
+    try (ConfigurableApplicationContext context = builder.run()) {
+      seedCoupons(context.getBean(CouponService.class));
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      HttpRequest request =
+          HttpRequest.newBuilder(
+                  URI.create("http://localhost:" + port + "/api/coupons/applicable-coupons"))
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofString(cart()))
+              .build();
+
+      fire(request, WARMUP_REQUESTS);
+      long started = System.nanoTime();
+      long[] latencies = fire(request, REQUESTS);
+      double seconds = (System.nanoTime() - started) / 1e9;
+
+      Arrays.sort(latencies);
+      return new Result(
+          mode,
+          REQUESTS / seconds,
+          latencies[latencies.length / 2] / 1e6,
+          latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+  }
+
+  /** Sends {@code count} requests from {@link #CLIENTS} concurrent clients; returns latencies. */
+  private long[] fire(HttpRequest request, int count) throws Exception {
+    long[] latencies = new long[count];
+    AtomicInteger next = new AtomicInteger();
+    ExecutorService io = Executors.newFixedThreadPool(8);
+    HttpClient client = HttpClient.newBuilder().executor(io).build();
+    ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < CLIENTS; i++) {
+        futures.add(
+            clients.submit(
+                () -> {
+                  for (int n = next.getAndIncrement(); n < count; n = next.getAndIncrement()) {
+                    long sent = System.nanoTime();
+                    HttpResponse<Void> response =
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                    latencies[n] = System.nanoTime() - sent;
+                    assertThat(response.statusCode()).isEqualTo(200);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) future.get();
+    } finally {
+      clients.shutdownNow();
+      io.shutdownNow();
+    }
+    return latencies;
+  }
+
+  private static void seedCoupons(CouponService couponService) {
+    List<CouponRequestDTO> requests = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      CouponRequestDTO request = new CouponRequestDTO();
+      request.setType(i % 2 == 0 ? CouponType.CART_WISE : CouponType.PRODUCT_WISE);
+      CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+      details.setThreshold(i % 2 == 0 ? (double) i : null);
+      details.setProductId(i % 2 == 0 ? null : String.valueOf(1 + i % 3));
+      details.setDiscount(5.0);
+      request.setDetails(details);
+      requests.add(request);
+    }
+    couponService.addCoupons(requests);
+  }
+
+  private String cart() throws Exception {
+    List<CartRequestDTO.CartItem> items = new ArrayList<>();
+    for (long productId = 1; productId <= 3; productId++) {
+      CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
+      item.setProductId(productId);
+      item.setQuantity(2);
+      items.add(item);
+    }
+    CartRequestDTO.Cart cart = new CartRequestDTO.Cart();
+    cart.setItems(items);
+    CartRequestDTO request = new CartRequestDTO();
+    request.setCart(cart);
+    return objectMapper.writeValueAsString(request);
+  }
+}
@@ -6,9 +6,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.ecommerce.coupons_management.dto.*;
 import com.ecommerce.coupons_management.enums.CouponType;
 import com.ecommerce.coupons_management.model.Coupon;
+import com.ecommerce.coupons_management.service.CatalogVersion;
+import com.ecommerce.coupons_management.service.CouponBatchApplier;
+import com.ecommerce.coupons_management.service.CouponExporter;
+import com.ecommerce.coupons_management.service.CouponImporter;
+import com.ecommerce.coupons_management.service.CouponRedemptionService;
 import com.ecommerce.coupons_management.service.CouponService;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
 import org.junit.jupiter.api.*;
@@ -24,6 +30,11 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 class CouponControllerTest {
 
   @Mock private CouponService couponService;
+  @Mock private CouponExporter couponExporter;
+  @Mock private CouponImporter couponImporter;
+  @Mock private CouponRedemptionService couponRedemptionService;
+  @Mock private CouponBatchApplier couponBatchApplier;
+  @Spy private CatalogVersion catalogVersion = new CatalogVersion();
 
   @InjectMocks private CouponController couponController;
 
@@ -73,6 +84,27 @@ class CouponControllerTest {
         .andExpect(jsonPath("$.coupon_code").value("SAVE10"));
   }
 
+  @Test
+  void testCreateCouponsInBulk() throws Exception {
+    BulkCouponResponseDTO.ItemResult result =
+        BulkCouponResponseDTO.ItemResult.builder()
+            .index(0)
+            .coupon_id(1L)
+            .coupon_code("SAVE10")
+            .build();
+    Mockito.when(couponService.addCoupons(Mockito.anyList()))
+        .thenReturn(new BulkCouponResponseDTO(1, 0, List.of(result)));
+
+    mockMvc
+        .perform(
+            post("/api/coupons/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(couponRequest))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(1))
+        .andExpect(jsonPath("$.results[0].coupon_code").value("SAVE10"));
+  }
+
   @Test
   void testGetAllCoupons() throws Exception {
     Mockito.when(
@@ -86,6 +118,113 @@ class CouponControllerTest {
         .andExpect(jsonPath("$.content[0].couponCode").value("SAVE10"));
   }
 
+  @Test
+  void testGetCouponsByCursor() throws Exception {
+    Mockito.when(couponService.getCouponsAfter("abc", 2, "id"))
+        .thenReturn(
+            CouponCursorPageDTO.builder()
+                .content(List.of(coupon))
+                .next_cursor("def")
+                .has_next(true)
+                .build());
+
+    mockMvc
+        .perform(get("/api/coupons?after=abc&limit=2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].couponCode").value("SAVE10"))
+        .andExpect(jsonPath("$.next_cursor").value("def"));
+  }
+
+  @Test
+  void testApplyBatchStreamsResults() throws Exception {
+    Mockito.when(couponBatchApplier.apply(Mockito.anyList(), Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              OutputStream out = invocation.getArgument(1);
+              out.write("{\"index\":0}\n".getBytes());
+              return 0L;
+            });
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/api/coupons/apply-batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"couponId\":1,\"cart\":{\"items\":[]}}]"))
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string("{\"index\":0}\n"));
+    Mockito.verify(couponBatchApplier).checkBatchSize(Mockito.anyList());
+  }
+
+  @Test
+  void testExportCoupons() throws Exception {
+    Mockito.when(couponExporter.export(Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              OutputStream out = invocation.getArgument(0);
+              out.write("{\"id\":1}\n".getBytes());
+              return 1L;
+            });
+
+    MvcResult result = mockMvc.perform(get("/api/coupons/export")).andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string("{\"id\":1}\n"));
+  }
+
+  @Test
+  void testImportCouponsNdjson() throws Exception {
+    Mockito.when(couponImporter.importNdjson(Mockito.any()))
+        .thenReturn(
+            CouponImportReportDTO.builder().processed(1).created(1).errors(List.of()).build());
+
+    mockMvc
+        .perform(
+            post("/api/coupons/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(objectMapper.writeValueAsString(couponRequest)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(1));
+  }
+
+  @Test
+  void testImportCouponsCsv() throws Exception {
+    Mockito.when(couponImporter.importCsv(Mockito.any()))
+        .thenReturn(CouponImportReportDTO.builder().processed(1).failed(1).build());
+
+    mockMvc
+        .perform(post("/api/coupons/import").contentType("text/csv").content("type\nUNKNOWN\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.failed").value(1));
+  }
+
+  @Test
+  void testReserveAndConfirmCoupon() throws Exception {
+    Mockito.when(couponRedemptionService.reserve(1L, "alice"))
+        .thenReturn(ReservationResponseDTO.builder().token("t-1").coupon_id(1L).build());
+
+    mockMvc
+        .perform(
+            post("/api/coupons/1/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\":\"alice\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.token").value("t-1"));
+    mockMvc
+        .perform(post("/api/coupons/reservations/t-1/confirm"))
+        .andExpect(status().isNoContent());
+
+    Mockito.verify(couponRedemptionService).confirm("t-1");
+  }
+
   @Test
   void testGetCouponById() throws Exception {
     Mockito.when(couponService.getCouponById(1L)).thenReturn(coupon);
@@ -93,9 +232,61 @@ class CouponControllerTest {
     mockMvc
         .perform(get("/api/coupons/1"))
         .andExpect(status().isOk())
+        .andExpect(header().string("ETag", catalogVersion.couponETag(coupon)))
         .andExpect(jsonPath("$.couponCode").value("SAVE10"));
   }
 
+  @Test
+  void testGetCouponByIdNotModifiedSkipsRead() throws Exception {
+    coupon.setVersion(3L);
+    catalogVersion.couponSaved(coupon);
+    String etag = catalogVersion.couponETag(1L);
+
+    mockMvc
+        .perform(get("/api/coupons/1").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", etag))
+        .andExpect(content().string(""));
+
+    Mockito.verifyNoInteractions(couponService);
+  }
+
+  @Test
+  void testGetCouponByIdStaleETagReadsAgain() throws Exception {
+    coupon.setVersion(3L);
+    catalogVersion.couponSaved(coupon);
+    String stale = catalogVersion.couponETag(1L);
+    catalogVersion.couponsBumped(List.of(1L));
+    coupon.setVersion(4L);
+    Mockito.when(couponService.getCouponById(1L)).thenReturn(coupon);
+
+    mockMvc
+        .perform(get("/api/coupons/1").header("If-None-Match", stale))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", catalogVersion.couponETag(1L)));
+  }
+
+  @Test
+  void testGetAllCouponsNotModifiedUntilCatalogChanges() throws Exception {
+    String etag = catalogVersion.catalogETag();
+
+    mockMvc
+        .perform(get("/api/coupons?page=0&size=5").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+    Mockito.verifyNoInteractions(couponService);
+
+    catalogVersion.couponRemoved(2L);
+    Mockito.when(
+            couponService.getAllCoupons(
+                Mockito.anyInt(), Mockito.anyInt(), Mockito.anyString(), Mockito.anyString()))
+        .thenReturn(new PageImpl<>(List.of(coupon), PageRequest.of(0, 5), 1));
+
+    mockMvc
+        .perform(get("/api/coupons?page=0&size=5").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", catalogVersion.catalogETag()));
+  }
+
   @Test
   void testUpdateCoupon() throws Exception {
     Mockito.when(couponService.getCouponById(1L)).thenReturn(coupon);
@@ -120,12 +311,14 @@ class CouponControllerTest {
   void testGetApplicableCoupons() throws Exception {
     CartRequestDTO cartRequest = new CartRequestDTO();
 
-    Mockito.when(couponService.getApplicableCoupons(Mockito.any(CartRequestDTO.class)))
-        .thenReturn(List.of(coupon));
-    Mockito.when(
-            couponService.getApplicableCoupons(
-                Mockito.any(Coupon.class), Mockito.any(CartRequestDTO.class)))
-        .thenReturn(10.0);
+    ApplicableCouponsResponseDTO.CouponInfo info =
+        ApplicableCouponsResponseDTO.CouponInfo.builder()
+            .coupon_id(1L)
+            .type("cart_wise")
+            .discount(10.0)
+            .build();
+    Mockito.when(couponService.evaluateApplicableCoupons(Mockito.any(CartRequestDTO.class)))
+        .thenReturn(new ApplicableCouponsResponseDTO(List.of(info)));
 
     mockMvc
         .perform(
@@ -133,9 +326,32 @@ class CouponControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(cartRequest)))
         .andExpect(status().isOk())
+        .andExpect(jsonPath("$.applicable_coupons[0].coupon_id").value(1))
+        .andExpect(jsonPath("$.applicable_coupons[0].type").value("cart_wise"))
         .andExpect(jsonPath("$.applicable_coupons[0].discount").value(10.0));
   }
 
+  @Test
+  void testGetBestDeal() throws Exception {
+    CartResponseDTO.UpdatedCart updatedCart = new CartResponseDTO.UpdatedCart();
+    updatedCart.setTotalPrice(100.0);
+    updatedCart.setTotalDiscount(25.0);
+    updatedCart.setFinalPrice(75.0);
+
+    Mockito.when(couponService.findBestDeal(Mockito.any(CartRequestDTO.class)))
+        .thenReturn(new BestDealResponseDTO(List.of(2L, 1L), updatedCart, true));
+
+    mockMvc
+        .perform(
+            post("/api/coupons/best-deal")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new CartRequestDTO())))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.coupon_ids[0]").value(2))
+        .andExpect(jsonPath("$.updated_cart.finalPrice").value(75.0))
+        .andExpect(jsonPath("$.search_complete").value(true));
+  }
+
   @Test
   void testApplyCouponToCart() throws Exception {
     CartRequestDTO cartRequest = new CartRequestDTO();
@@ -0,0 +1,123 @@
+package com.ecommerce.coupons_management.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.*;
+import org.springframework.test.web.servlet.*;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class StatementCountFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CouponMetrics couponMetrics = new CouponMetrics(meterRegistry);
+  private final StatementCounter statementCounter = new StatementCounter();
+  private final StatementCountFilter filter =
+      new StatementCountFilter(statementCounter, couponMetrics);
+
+  @RestController
+  class StreamingController {
+
+    @GetMapping("/api/stream")
+    StreamingResponseBody stream() {
+      statementCounter.inspect("select 1");
+      return out -> {
+        statementCounter.inspect("select 2");
+        statementCounter.inspect("select 3");
+        out.write("done".getBytes(StandardCharsets.UTF_8));
+      };
+    }
+  }
+
+  private void perform(Runnable handler) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/coupons/apply");
+    MockFilterChain chain =
+        new MockFilterChain(
+            new HttpServlet() {
+              @Override
+              protected void service(HttpServletRequest req, HttpServletResponse res) {
+                handler.run();
+                req.setAttribute(
+                    HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/coupons/apply");
+              }
+            });
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+  }
+
+  @Test
+  void testRecordsStatementsPerEndpoint() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/coupons/7");
+    MockFilterChain chain =
+        new MockFilterChain(
+            new HttpServlet() {
+              @Override
+              protected void service(HttpServletRequest req, HttpServletResponse res) {
+                statementCounter.inspect("select 1");
+                statementCounter.inspect("select 2");
+                req.setAttribute(
+                    HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/coupons/{id}");
+              }
+            });
+
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    var summary =
+        meterRegistry
+            .get("coupons.db.statements")
+            .tags("method", "GET", "uri", "/api/coupons/{id}", "type", "none")
+            .summary();
+    assertThat(summary.count()).isEqualTo(1);
+    assertThat(summary.totalAmount()).isEqualTo(2.0);
+  }
+
+  @Test
+  void testTagsCouponTypeEvaluated() throws Exception {
+    perform(() -> couponMetrics.evaluated(CouponMetrics.APPLY, CouponType.CART_WISE));
+    perform(
+        () -> {
+          couponMetrics.evaluated(CouponMetrics.APPLY, CouponType.CART_WISE);
+          couponMetrics.rejected(CouponType.BXGY, CouponMetrics.LIMIT_REACHED);
+        });
+
+    assertThat(
+            meterRegistry.get("coupons.db.statements").tag("type", "cart_wise").summary().count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.get("coupons.db.statements").tag("type", "mixed").summary().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void testRecordsStreamedResponseOnceWritten() throws Exception {
+    MockMvc mockMvc =
+        MockMvcBuilders.standaloneSetup(new StreamingController()).addFilters(filter).build();
+
+    MvcResult result = mockMvc.perform(get("/api/stream")).andReturn();
+    result.getAsyncResult();
+    assertThat(meterRegistry.find("coupons.db.statements").summary()).isNull();
+
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+    var summary =
+        meterRegistry
+            .get("coupons.db.statements")
+            .tags("method", "GET", "uri", "/api/stream")
+            .summary();
+    assertThat(summary.count()).isEqualTo(1);
+    assertThat(summary.totalAmount()).isEqualTo(3.0);
+  }
+
+  @Test
+  void testDoesNotCountOutsideRequests() {
+    assertThat(statementCounter.inspect("select 1")).isEqualTo("select 1");
+    assertThat(statementCounter.end()).isZero();
+  }
+}
@@ -0,0 +1,86 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.Coupon;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BestDealSearchTest {
+
+  private static Coupon coupon(long id, boolean exclusive) {
+    return Coupon.builder().id(id).type(CouponType.CART_WISE).exclusive(exclusive).build();
+  }
+
+  /** Stack discount where every coupon simply adds its standalone discount. */
+  private static double additive(List<Coupon> stack, Map<Long, Double> discounts) {
+    return stack.stream().mapToDouble(coupon -> discounts.get(coupon.getId())).sum();
+  }
+
+  @Test
+  void testPicksLargestStackWithinLimit() {
+    BestDealSearch search = new BestDealSearch(2, 1000);
+    Map<Long, Double> discounts = Map.of(1L, 10.0, 2L, 30.0, 3L, 20.0);
+    List<BestDealSearch.Option> options = new ArrayList<>();
+    discounts.forEach(
+        (id, discount) -> options.add(new BestDealSearch.Option(coupon(id, false), discount)));
+
+    BestDealSearch.Result result = search.search(options, stack -> additive(stack, discounts));
+
+    assertThat(result.coupons()).extracting(Coupon::getId).containsExactlyInAnyOrder(2L, 3L);
+    assertThat(result.discount()).isEqualTo(50.0);
+    assertThat(result.complete()).isTrue();
+  }
+
+  @Test
+  void testExclusiveCouponIsNeverStacked() {
+    BestDealSearch search = new BestDealSearch(3, 1000);
+    Map<Long, Double> discounts = Map.of(1L, 40.0, 2L, 25.0, 3L, 20.0);
+    List<BestDealSearch.Option> options =
+        List.of(
+            new BestDealSearch.Option(coupon(1L, true), 40.0),
+            new BestDealSearch.Option(coupon(2L, false), 25.0),
+            new BestDealSearch.Option(coupon(3L, false), 20.0));
+
+    BestDealSearch.Result result = search.search(options, stack -> additive(stack, discounts));
+
+    assertThat(result.coupons()).extracting(Coupon::getId).containsExactlyInAnyOrder(2L, 3L);
+    assertThat(result.discount()).isEqualTo(45.0);
+  }
+
+  @Test
+  void testPrunesBranchesThatCannotWin() {
+    BestDealSearch search = new BestDealSearch(1, 1000);
+    Map<Long, Double> discounts = new HashMap<>();
+    List<BestDealSearch.Option> options = new ArrayList<>();
+    for (long id = 1; id <= 100; id++) {
+      discounts.put(id, (double) id);
+      options.add(new BestDealSearch.Option(coupon(id, false), id));
+    }
+    AtomicInteger evaluations = new AtomicInteger();
+
+    BestDealSearch.Result result =
+        search.search(
+            options,
+            stack -> {
+              evaluations.incrementAndGet();
+              return additive(stack, discounts);
+            });
+
+    assertThat(result.coupons()).extracting(Coupon::getId).containsExactly(100L);
+    assertThat(evaluations.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testReturnsBestSoFarWhenOutOfTime() {
+    BestDealSearch search = new BestDealSearch(3, 0);
+    List<BestDealSearch.Option> options =
+        List.of(new BestDealSearch.Option(coupon(1L, false), 5.0));
+
+    BestDealSearch.Result result = search.search(options, stack -> 5.0);
+
+    assertThat(result.complete()).isFalse();
+  }
+}
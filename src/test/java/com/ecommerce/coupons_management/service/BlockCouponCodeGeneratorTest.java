@@ -0,0 +1,66 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.ecommerce.coupons_management.model.CouponCodeBlock;
+import com.ecommerce.coupons_management.repository.CouponCodeBlockRepository;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BlockCouponCodeGeneratorTest {
+
+  private CouponCodeBlockRepository couponCodeBlockRepository;
+  private BlockCouponCodeGenerator generator;
+
+  @BeforeEach
+  void setUp() {
+    couponCodeBlockRepository = mock(CouponCodeBlockRepository.class);
+    AtomicLong blocks = new AtomicLong();
+    when(couponCodeBlockRepository.save(any(CouponCodeBlock.class)))
+        .thenAnswer(
+            i -> {
+              CouponCodeBlock block = i.getArgument(0);
+              block.setId(blocks.incrementAndGet());
+              return block;
+            });
+    generator = new BlockCouponCodeGenerator(couponCodeBlockRepository, "COUPON-", "test-secret");
+  }
+
+  @Test
+  void testCodesAreUniqueAcrossBlocks() {
+    int count = (int) (3 * BlockCouponCodeGenerator.BLOCK_SIZE);
+    Set<String> codes = new HashSet<>(count);
+    for (int i = 0; i < count; i++) {
+      codes.add(generator.nextCode());
+    }
+
+    assertThat(codes).hasSize(count);
+    verify(couponCodeBlockRepository, times(3)).save(any(CouponCodeBlock.class));
+  }
+
+  @Test
+  void testCodeFormat() {
+    assertThat(generator.nextCode()).matches("COUPON-[0-9A-HJKMNP-TV-Z]{9}");
+  }
+
+  @Test
+  void testConsecutiveCodesAreNotSequential() {
+    String first = generator.nextCode();
+    String second = generator.nextCode();
+
+    assertThat(first.substring(0, first.length() - 1))
+        .isNotEqualTo(second.substring(0, second.length() - 1));
+  }
+
+  @Test
+  void testSecretChangesCodes() {
+    BlockCouponCodeGenerator other =
+        new BlockCouponCodeGenerator(couponCodeBlockRepository, "COUPON-", "other-secret");
+
+    assertThat(other.permute(42L)).isNotEqualTo(generator.permute(42L));
+  }
+}
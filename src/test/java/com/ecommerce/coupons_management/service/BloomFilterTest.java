@@ -0,0 +1,35 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void testAddedValuesAreAlwaysFound() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) filter.add("COUPON-" + i);
+
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(filter.mightContain("COUPON-" + i)).isTrue();
+    }
+  }
+
+  @Test
+  void testFalsePositiveRateStaysNearTarget() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) filter.add("COUPON-" + i);
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("GUESS-" + i)) falsePositives++;
+    }
+    assertThat(falsePositives).isLessThan(2_000);
+  }
+
+  @Test
+  void testEmptyFilterContainsNothing() {
+    assertThat(new BloomFilter(100, 0.01).mightContain("COUPON-1")).isFalse();
+  }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.repository.BxGyDetailRepository;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BxGyDetailMigrationTest {
+
+  @Mock private BxGyDetailRepository bxGyDetailRepository;
+  @InjectMocks private BxGyDetailMigration migration;
+
+  @Captor private ArgumentCaptor<List<BxGyDetail>> savedRules;
+
+  @Test
+  void testFoldsPairRowsIntoBuyAndGetSets() {
+    Coupon coupon = Coupon.builder().id(1L).type(CouponType.BXGY).build();
+    List<BxGyDetail> legacyRows = new ArrayList<>();
+    for (long buy : new long[] {1L, 2L}) {
+      for (long get : new long[] {3L, 4L}) {
+        legacyRows.add(
+            BxGyDetail.builder()
+                .coupon(coupon)
+                .buyProductId(buy)
+                .buyQuantity(2)
+                .getProductId(get)
+                .getQuantity(1)
+                .repetitionLimit(3)
+                .build());
+      }
+    }
+    when(bxGyDetailRepository.findByBuyProductIdIsNotNull()).thenReturn(legacyRows);
+
+    assertThat(migration.migrateLegacyRows()).isEqualTo(1);
+
+    verify(bxGyDetailRepository).deleteAll(legacyRows);
+    verify(bxGyDetailRepository).saveAll(savedRules.capture());
+    BxGyDetail rule = savedRules.getValue().get(0);
+    assertThat(rule.getCoupon()).isSameAs(coupon);
+    assertThat(rule.getRepetitionLimit()).isEqualTo(3);
+    assertThat(rule.getBuyProducts())
+        .containsExactly(new BxGyProduct(1L, 2), new BxGyProduct(2L, 2));
+    assertThat(rule.getGetProducts())
+        .containsExactly(new BxGyProduct(3L, 1), new BxGyProduct(4L, 1));
+  }
+
+  @Test
+  void testNothingToMigrate() {
+    when(bxGyDetailRepository.findByBuyProductIdIsNotNull()).thenReturn(List.of());
+
+    assertThat(migration.migrateLegacyRows()).isZero();
+    verify(bxGyDetailRepository, never()).saveAll(any());
+  }
+}
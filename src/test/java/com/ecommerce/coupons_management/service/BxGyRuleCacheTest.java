@@ -0,0 +1,69 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.repository.BxGyDetailRepository;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BxGyRuleCacheTest {
+
+  @Mock private BxGyDetailRepository bxGyDetailRepository;
+  @InjectMocks private BxGyRuleCache bxGyRuleCache;
+
+  private BxGyDetail rule(long couponId, long buyProductId) {
+    Coupon coupon = Coupon.builder().id(couponId).type(CouponType.BXGY).build();
+    return BxGyDetail.builder()
+        .coupon(coupon)
+        .buyProducts(List.of(new BxGyProduct(buyProductId, 1)))
+        .getProducts(List.of(new BxGyProduct(99L, 1)))
+        .build();
+  }
+
+  @Test
+  void testLoadsMissingCouponsInOneQuery() {
+    BxGyDetail first = rule(1L, 10L);
+    BxGyDetail second = rule(2L, 20L);
+    when(bxGyDetailRepository.findByCouponIdIn(anyCollection())).thenReturn(List.of(first, second));
+
+    Map<Long, List<BxGyDetail>> rules = bxGyRuleCache.getRules(List.of(1L, 2L, 3L));
+
+    assertThat(rules.get(1L)).containsExactly(first);
+    assertThat(rules.get(2L)).containsExactly(second);
+    assertThat(rules.get(3L)).isEmpty();
+    verify(bxGyDetailRepository, times(1)).findByCouponIdIn(anyCollection());
+  }
+
+  @Test
+  void testServesCachedRulesWithoutQuery() {
+    when(bxGyDetailRepository.findByCouponIdIn(anyCollection())).thenReturn(List.of(rule(1L, 10L)));
+
+    bxGyRuleCache.getRules(1L);
+    bxGyRuleCache.getRules(1L);
+
+    verify(bxGyDetailRepository, times(1)).findByCouponIdIn(anyCollection());
+  }
+
+  @Test
+  void testEvictReloadsRules() {
+    when(bxGyDetailRepository.findByCouponIdIn(anyCollection()))
+        .thenReturn(List.of(rule(1L, 10L)))
+        .thenReturn(List.of(rule(1L, 20L)));
+
+    bxGyRuleCache.getRules(1L);
+    bxGyRuleCache.evict(1L);
+
+    assertThat(bxGyRuleCache.getRules(1L))
+        .flatExtracting(BxGyDetail::getBuyProducts)
+        .extracting(BxGyProduct::getProductId)
+        .containsExactly(20L);
+  }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.dto.CartRequestDTO;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class CartKernelTest {
+
+  private static CartRequestDTO.CartItem item(long productId, int quantity) {
+    CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
+    item.setProductId(productId);
+    item.setQuantity(quantity);
+    return item;
+  }
+
+  private static Coupon coupon(long id, CouponType type, double discount) {
+    return Coupon.builder().id(id).type(type).discount(discount).build();
+  }
+
+  @Test
+  void testTotalsAreExactCents() {
+    CartKernel cart =
+        CartKernel.of(
+            List.of(item(1L, 1), item(2L, 1), item(3L, 1)), Map.of(1L, 0.1, 2L, 0.1, 3L, 0.1));
+
+    assertThat(cart.totalCents()).isEqualTo(30);
+    assertThat(CartKernel.amount(cart.totalCents())).isEqualTo(0.3);
+  }
+
+  @Test
+  void testRepeatedLinesShareOneProduct() {
+    CartKernel cart =
+        CartKernel.of(List.of(item(7L, 2), item(3L, 1), item(7L, 3)), Map.of(7L, 1.5, 3L, 4.0));
+
+    assertThat(cart.lineCount()).isEqualTo(3);
+    assertThat(cart.productCount()).isEqualTo(2);
+    assertThat(cart.productId(0)).isEqualTo(7L);
+    assertThat(cart.quantityOf(7L)).isEqualTo(5);
+    assertThat(cart.quantityOf(99L)).isZero();
+    assertThat(cart.totalCents()).isEqualTo(1150);
+  }
+
+  @Test
+  void testPercentDiscountsRoundHalfUpToCents() {
+    CartKernel cart = CartKernel.of(List.of(item(1L, 1)), Map.of(1L, 0.05));
+
+    assertThat(cart.discountCents(coupon(1L, CouponType.CART_WISE, 10.0), List.of())).isEqualTo(1);
+    assertThat(cart.discountCents(coupon(2L, CouponType.CART_WISE, 9.0), List.of())).isZero();
+  }
+
+  @Test
+  void testApplyDiscountsEveryLineOfTheProduct() {
+    CartKernel cart =
+        CartKernel.of(List.of(item(1L, 1), item(2L, 1), item(1L, 2)), Map.of(1L, 10.0, 2L, 5.0));
+    Coupon productWise = coupon(1L, CouponType.PRODUCT_WISE, 50.0);
+    productWise.setProductId(1L);
+
+    CartKernel.Applied applied = cart.apply(productWise, List.of());
+
+    assertThat(applied.lineDiscountCents()).containsExactly(500, 0, 1000);
+    assertThat(applied.totalDiscountCents()).isEqualTo(1500);
+  }
+
+  @Test
+  void testBxGyGivesFreeUnitsOnFirstLine() {
+    CartKernel cart = CartKernel.of(List.of(item(1L, 4), item(2L, 1)), Map.of(1L, 10.0, 2L, 2.5));
+    BxGyDetail rule =
+        BxGyDetail.builder()
+            .buyProducts(List.of(new BxGyProduct(1L, 2)))
+            .getProducts(List.of(new BxGyProduct(2L, 1)))
+            .build();
+
+    CartKernel.Applied applied = cart.apply(coupon(1L, CouponType.BXGY, 0.0), List.of(rule));
+
+    assertThat(applied.lineFreeQuantities()).containsExactly(0, 2);
+    assertThat(applied.totalDiscountCents()).isEqualTo(500);
+    assertThat(cart.qualifies(coupon(1L, CouponType.BXGY, 0.0), List.of(rule))).isTrue();
+  }
+
+  @Test
+  void testStackAppliesEachCouponToWhatIsLeft() {
+    CartKernel cart = CartKernel.of(List.of(item(1L, 1)), Map.of(1L, 100.0));
+    Coupon productWise = coupon(1L, CouponType.PRODUCT_WISE, 50.0);
+    productWise.setProductId(1L);
+    Coupon cartWise = coupon(2L, CouponType.CART_WISE, 10.0);
+    cartWise.setThreshold(60.0);
+
+    assertThat(cart.applyStack(List.of(productWise, cartWise), Map.of()).totalDiscountCents())
+        .as("cart-wise threshold is checked against the 50.00 left")
+        .isEqualTo(5000);
+    assertThat(cart.applyStack(List.of(cartWise, productWise), Map.of()).totalDiscountCents())
+        .isEqualTo(1000 + 4500);
+  }
+}
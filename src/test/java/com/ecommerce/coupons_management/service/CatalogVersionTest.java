@@ -0,0 +1,68 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.model.Coupon;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CatalogVersionTest {
+
+  private CatalogVersion catalogVersion;
+
+  private Coupon coupon(long id, long version) {
+    return Coupon.builder().id(id).version(version).build();
+  }
+
+  @BeforeEach
+  void setUp() {
+    catalogVersion = new CatalogVersion();
+  }
+
+  @Test
+  void testUntrackedCouponHasNoETag() {
+    assertThat(catalogVersion.couponETag(1L)).isNull();
+  }
+
+  @Test
+  void testCouponETagFollowsVersion() {
+    catalogVersion.couponSaved(coupon(1L, 0));
+    String saved = catalogVersion.couponETag(1L);
+
+    catalogVersion.couponsBumped(List.of(1L));
+
+    assertThat(saved).startsWith("\"").endsWith("-1-0\"");
+    assertThat(catalogVersion.couponETag(1L)).isEqualTo(catalogVersion.couponETag(coupon(1L, 1)));
+  }
+
+  @Test
+  void testLateReportDoesNotMoveVersionBack() {
+    catalogVersion.couponRead(coupon(1L, 5));
+    catalogVersion.couponSaved(coupon(1L, 4));
+
+    assertThat(catalogVersion.couponETag(1L)).isEqualTo(catalogVersion.couponETag(coupon(1L, 5)));
+  }
+
+  @Test
+  void testCatalogETagChangesOnEveryWrite() {
+    String initial = catalogVersion.catalogETag();
+    catalogVersion.couponRead(coupon(1L, 0));
+    assertThat(catalogVersion.catalogETag()).isEqualTo(initial);
+
+    catalogVersion.couponRemoved(1L);
+
+    assertThat(catalogVersion.catalogETag()).isNotEqualTo(initial);
+    assertThat(catalogVersion.couponETag(1L)).isNull();
+  }
+
+  @Test
+  void testResetForgetsRemovedCoupons() {
+    catalogVersion.couponSaved(coupon(1L, 0));
+
+    catalogVersion.reset(List.of(coupon(2L, 3)));
+
+    assertThat(catalogVersion.couponETag(1L)).isNull();
+    assertThat(catalogVersion.couponETag(2L)).endsWith("-2-3\"");
+  }
+}
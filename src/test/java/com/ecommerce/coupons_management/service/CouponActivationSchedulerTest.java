@@ -0,0 +1,145 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.Coupon;
+import com.ecommerce.coupons_management.repository.CouponRepository;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+@ExtendWith(MockitoExtension.class)
+class CouponActivationSchedulerTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+  @Mock private CouponRepository couponRepository;
+  @Mock private BxGyRuleCache bxGyRuleCache;
+  @Mock private CouponBatchWriter couponBatchWriter;
+  @Mock private TaskScheduler taskScheduler;
+
+  private final CouponIndex couponIndex = new CouponIndex();
+  private final CatalogVersion catalogVersion = new CatalogVersion();
+  private Instant now = startOf(TODAY);
+  private CouponActivationScheduler scheduler;
+
+  private static Instant startOf(LocalDate day) {
+    return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  /** A UTC clock that reads {@link #now}, so tests can move time forward. */
+  private final Clock clock =
+      new Clock() {
+        @Override
+        public ZoneId getZone() {
+          return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+          return now;
+        }
+      };
+
+  private Coupon coupon(long id, LocalDate startDate, LocalDate expiryDate) {
+    return Coupon.builder()
+        .id(id)
+        .type(CouponType.CART_WISE)
+        .threshold(100.0)
+        .discount(10.0)
+        .isActive(true)
+        .startDate(startDate)
+        .expiryDate(expiryDate)
+        .build();
+  }
+
+  @BeforeEach
+  void setUp() {
+    scheduler =
+        new CouponActivationScheduler(
+            couponRepository,
+            bxGyRuleCache,
+            couponIndex,
+            couponBatchWriter,
+            catalogVersion,
+            taskScheduler,
+            clock);
+  }
+
+  @Test
+  void testIsLiveBetweenStartAndExpiryDates() {
+    Coupon coupon = coupon(1L, TODAY, TODAY.plusDays(1));
+
+    assertThat(CouponActivationScheduler.isLive(coupon, TODAY.minusDays(1))).isFalse();
+    assertThat(CouponActivationScheduler.isLive(coupon, TODAY)).isTrue();
+    assertThat(CouponActivationScheduler.isLive(coupon, TODAY.plusDays(1))).isTrue();
+    assertThat(CouponActivationScheduler.isLive(coupon, TODAY.plusDays(2))).isFalse();
+    coupon.setIsActive(false);
+    assertThat(CouponActivationScheduler.isLive(coupon, TODAY)).isFalse();
+  }
+
+  @Test
+  void testArmsWakeupForEarliestTransition() {
+    Coupon starting = coupon(1L, TODAY.plusDays(5), TODAY.plusDays(30));
+    Coupon expiring = coupon(2L, null, TODAY.plusDays(2));
+
+    scheduler.schedule(List.of(starting, expiring));
+
+    verify(taskScheduler).schedule(any(Runnable.class), eq(startOf(TODAY.plusDays(3))));
+  }
+
+  @Test
+  void testIndexesCouponOnItsStartDate() {
+    Coupon coupon = coupon(1L, TODAY.plusDays(1), TODAY.plusDays(30));
+    scheduler.schedule(List.of(coupon));
+    verify(taskScheduler).schedule(any(Runnable.class), eq(startOf(TODAY.plusDays(1))));
+    assertThat(couponIndex.get(1L)).isNull();
+
+    now = startOf(TODAY.plusDays(1));
+    when(couponRepository.findAllById(anyCollection())).thenReturn(List.of(coupon));
+    when(couponRepository.findActiveExpiredIds(any())).thenReturn(List.of());
+    scheduler.fire();
+
+    assertThat(couponIndex.get(1L)).isSameAs(coupon);
+  }
+
+  @Test
+  void testUnindexesAndDeactivatesExpiredCoupon() {
+    Coupon coupon = coupon(1L, null, TODAY.minusDays(1));
+    couponIndex.put(coupon);
+    catalogVersion.couponRead(coupon);
+    when(couponRepository.findAllById(anyCollection())).thenReturn(List.of(coupon));
+    when(couponRepository.findActiveExpiredIds(TODAY)).thenReturn(List.of(1L));
+
+    scheduler.schedule(List.of(coupon));
+    scheduler.fire();
+
+    assertThat(couponIndex.get(1L)).isNull();
+    verify(couponBatchWriter).deactivate(List.of(1L));
+    assertThat(catalogVersion.couponVersion(1L)).isEqualTo(1L);
+  }
+
+  @Test
+  void testRetriesTransitionsThatFailed() {
+    Coupon coupon = coupon(1L, null, TODAY.minusDays(1));
+    when(couponRepository.findAllById(anyCollection())).thenThrow(new IllegalStateException());
+
+    scheduler.schedule(List.of(coupon));
+    scheduler.fire();
+
+    verify(taskScheduler).schedule(any(Runnable.class), eq(now.plusSeconds(10)));
+  }
+}
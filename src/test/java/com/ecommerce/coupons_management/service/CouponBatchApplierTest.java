@@ -0,0 +1,28 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:batch-applier")
+class CouponBatchApplierTest {
+
+  @Autowired private CouponEvaluationPool couponEvaluationPool;
+
+  @Test
+  void testFullChunkIsPricedOnEvaluationPoolByDefault() {
+    Thread caller = Thread.currentThread();
+    List<Integer> positions = IntStream.range(0, CouponBatchApplier.CHUNK_SIZE).boxed().toList();
+
+    List<String> threads =
+        couponEvaluationPool.evaluateBatch(positions, i -> Thread.currentThread().getName());
+
+    assertThat(threads)
+        .doesNotContain(caller.getName())
+        .allMatch(name -> name.startsWith("coupon-eval-"));
+  }
+}
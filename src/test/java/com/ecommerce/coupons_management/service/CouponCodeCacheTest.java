@@ -0,0 +1,76 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.model.Coupon;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CouponCodeCacheTest {
+
+  private CatalogVersion catalogVersion;
+  private CouponCodeCache couponCodeCache;
+
+  private static Coupon coupon(long id, String code) {
+    return Coupon.builder().id(id).couponCode(code).version(0L).build();
+  }
+
+  @BeforeEach
+  void setUp() {
+    catalogVersion = new CatalogVersion();
+    couponCodeCache =
+        new CouponCodeCache(catalogVersion, 1000, 0.01, 100, 60, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void testEveryCodePassesUntilCatalogIsLoaded() {
+    assertThat(couponCodeCache.mightExist("COUPON-ANY")).isTrue();
+    assertThat(couponCodeCache.mightExist(null)).isFalse();
+  }
+
+  @Test
+  void testFilterRefusesUnknownCodes() {
+    couponCodeCache.startRebuild();
+    couponCodeCache.rebuild(List.of(coupon(1L, "COUPON-A")));
+
+    assertThat(couponCodeCache.mightExist("COUPON-A")).isTrue();
+    assertThat(couponCodeCache.mightExist("COUPON-B")).isFalse();
+
+    couponCodeCache.codesCreated(List.of(coupon(2L, "COUPON-B")));
+    assertThat(couponCodeCache.mightExist("COUPON-B")).isTrue();
+  }
+
+  @Test
+  void testCodesCreatedDuringRebuildAreKept() {
+    couponCodeCache.startRebuild();
+    couponCodeCache.codesCreated(List.of(coupon(2L, "COUPON-B")));
+    couponCodeCache.rebuild(List.of(coupon(1L, "COUPON-A")));
+
+    assertThat(couponCodeCache.mightExist("COUPON-B")).isTrue();
+  }
+
+  @Test
+  void testMissingAndRemovedCodesAreRefused() {
+    couponCodeCache.missing("COUPON-X");
+    Coupon removed = coupon(1L, "COUPON-A");
+    couponCodeCache.found(removed);
+    couponCodeCache.couponRemoved(removed);
+
+    assertThat(couponCodeCache.mightExist("COUPON-X")).isFalse();
+    assertThat(couponCodeCache.mightExist("COUPON-A")).isFalse();
+    assertThat(couponCodeCache.get("COUPON-A")).isNull();
+  }
+
+  @Test
+  void testNearCacheServesOnlyCurrentVersion() {
+    Coupon coupon = coupon(1L, "COUPON-A");
+    couponCodeCache.found(coupon);
+    assertThat(couponCodeCache.get("COUPON-A")).isSameAs(coupon);
+
+    catalogVersion.couponsBumped(List.of(1L));
+
+    assertThat(couponCodeCache.get("COUPON-A")).isNull();
+  }
+}
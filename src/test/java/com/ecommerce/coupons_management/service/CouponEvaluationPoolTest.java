@@ -0,0 +1,97 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.metrics.StatementCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.*;
+import java.util.stream.*;
+import org.junit.jupiter.api.*;
+
+class CouponEvaluationPoolTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private CouponEvaluationPool pool;
+
+  @BeforeEach
+  void setUp() {
+    pool = new CouponEvaluationPool(100, 10, 4, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  void testSmallSetsRunOnCallingThread() {
+    Thread caller = Thread.currentThread();
+
+    List<Thread> threads = pool.evaluate(List.of(1, 2, 3), i -> Thread.currentThread());
+
+    assertThat(threads).containsOnly(caller);
+  }
+
+  @Test
+  void testLargeSetsKeepCandidateOrder() {
+    List<Integer> candidates = IntStream.range(0, 100_000).boxed().toList();
+
+    List<Integer> even = pool.evaluate(candidates, i -> i % 2 == 0 ? i : null);
+
+    assertThat(even)
+        .hasSize(50_000)
+        .isEqualTo(IntStream.range(0, 100_000).filter(i -> i % 2 == 0).boxed().toList());
+  }
+
+  @Test
+  void testLargeSetsRunOnPoolThreads() {
+    Set<String> threads =
+        new HashSet<>(
+            pool.evaluate(
+                IntStream.range(0, 1000).boxed().toList(), i -> Thread.currentThread().getName()));
+
+    assertThat(threads).allMatch(name -> name.startsWith("coupon-eval-"));
+  }
+
+  @Test
+  void testPoolThreadsCountStatementsOfCaller() {
+    StatementCounter statementCounter = new StatementCounter();
+    statementCounter.begin();
+
+    pool.evaluate(
+        IntStream.range(0, 1000).boxed().toList(), i -> statementCounter.inspect("select 1"));
+
+    assertThat(statementCounter.end()).isEqualTo(1000);
+  }
+
+  @Test
+  void testBatchesUseTheirOwnThreshold() {
+    Thread caller = Thread.currentThread();
+    List<Integer> candidates = IntStream.range(0, 50).boxed().toList();
+
+    assertThat(pool.evaluate(candidates, i -> Thread.currentThread())).containsOnly(caller);
+    assertThat(pool.evaluateBatch(candidates, i -> Thread.currentThread())).doesNotContain(caller);
+  }
+
+  @Test
+  void testEvaluatorExceptionsPropagate() {
+    List<Integer> candidates = IntStream.range(0, 1000).boxed().toList();
+
+    assertThatThrownBy(
+            () ->
+                pool.evaluate(
+                    candidates,
+                    i -> {
+                      if (i == 500) throw new IllegalArgumentException("bad coupon");
+                      return i;
+                    }))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("bad coupon");
+  }
+
+  @Test
+  void testPoolMetricsAreRegistered() {
+    assertThat(meterRegistry.find("executor.parallelism").tag("name", "coupons.evaluation").gauge())
+        .isNotNull();
+  }
+}
@@ -0,0 +1,119 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.ecommerce.coupons_management.dto.CouponRequestDTO;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.repository.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CouponExporterTest {
+
+  private CouponRepository couponRepository;
+  private BxGyDetailRepository bxGyDetailRepository;
+  private EntityManager entityManager;
+  private ObjectMapper objectMapper;
+  private CouponExporter couponExporter;
+
+  @BeforeEach
+  void setUp() {
+    couponRepository = mock(CouponRepository.class);
+    bxGyDetailRepository = mock(BxGyDetailRepository.class);
+    entityManager = mock(EntityManager.class);
+    objectMapper =
+        new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    couponExporter =
+        new CouponExporter(couponRepository, bxGyDetailRepository, entityManager, objectMapper);
+  }
+
+  private Coupon coupon(long id, CouponType type) {
+    return Coupon.builder()
+        .id(id)
+        .couponCode("C" + id)
+        .type(type)
+        .discount(10.0)
+        .isActive(true)
+        .expiryDate(LocalDate.of(2030, 1, 1))
+        .build();
+  }
+
+  @Test
+  void testWritesOneLinePerCouponWithBxGyRules() throws Exception {
+    Coupon bxgy = coupon(2L, CouponType.BXGY);
+    when(couponRepository.streamAllByOrderByIdAsc())
+        .thenReturn(Stream.of(coupon(1L, CouponType.CART_WISE), bxgy));
+    when(bxGyDetailRepository.findByCouponIdIn(List.of(2L)))
+        .thenReturn(
+            List.of(
+                BxGyDetail.builder()
+                    .coupon(bxgy)
+                    .buyProducts(List.of(new BxGyProduct(1L, 2)))
+                    .getProducts(List.of(new BxGyProduct(3L, 1)))
+                    .repetitionLimit(2)
+                    .build()));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long written = couponExporter.export(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertThat(written).isEqualTo(2);
+    assertThat(lines).hasSize(2).allMatch(line -> line.startsWith("{"));
+    assertThat(objectMapper.readTree(lines[0]).get("couponCode").asText()).isEqualTo("C1");
+    JsonNode details = objectMapper.readTree(lines[1]).get("details");
+    assertThat(details.get("buyProducts").get(0).get("quantity").asInt()).isEqualTo(2);
+    assertThat(details.get("getProducts").get(0).get("productId").asLong()).isEqualTo(3L);
+    assertThat(details.get("repetitionLimit").asInt()).isEqualTo(2);
+  }
+
+  @Test
+  void testExportedLineCanBePostedBack() throws Exception {
+    Coupon scheduled = coupon(1L, CouponType.CART_WISE);
+    scheduled.setStartDate(LocalDate.of(2029, 12, 1));
+    scheduled.setMaxRedemptions(500);
+    scheduled.setMaxRedemptionsPerCustomer(2);
+    when(couponRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(scheduled));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    couponExporter.export(out);
+
+    CouponRequestDTO request =
+        objectMapper
+            .copy()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readValue(out.toString(StandardCharsets.UTF_8), CouponRequestDTO.class);
+    assertThat(request.getType()).isEqualTo(CouponType.CART_WISE);
+    assertThat(request.getStartDate()).isEqualTo(LocalDate.of(2029, 12, 1));
+    assertThat(request.getExpiryDate()).isEqualTo(LocalDate.of(2030, 1, 1));
+    assertThat(request.getMaxRedemptions()).isEqualTo(500);
+    assertThat(request.getMaxRedemptionsPerCustomer()).isEqualTo(2);
+    assertThat(request.getDetails().getDiscount()).isEqualTo(10.0);
+  }
+
+  @Test
+  void testClearsPersistenceContextPerChunk() throws Exception {
+    int count = CouponExporter.CHUNK_SIZE * 2 + 1;
+    when(couponRepository.streamAllByOrderByIdAsc())
+        .thenReturn(
+            LongStream.rangeClosed(1, count).mapToObj(id -> coupon(id, CouponType.CART_WISE)));
+
+    long written = couponExporter.export(new ByteArrayOutputStream());
+
+    assertThat(written).isEqualTo(count);
+    verify(entityManager, times(3)).clear();
+    verify(bxGyDetailRepository, never()).findByCouponIdIn(anyCollection());
+  }
+}
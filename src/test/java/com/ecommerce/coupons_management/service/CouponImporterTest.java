@@ -0,0 +1,135 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.ecommerce.coupons_management.dto.*;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CouponImporterTest {
+
+  private CouponService couponService;
+  private CouponImporter couponImporter;
+  private final List<List<CouponRequestDTO>> chunks = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    couponService = mock(CouponService.class);
+    // Mirrors addCoupons: requests without a type fail, the rest are created.
+    when(couponService.addCoupons(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<CouponRequestDTO> requests = invocation.getArgument(0);
+              chunks.add(List.copyOf(requests));
+              List<BulkCouponResponseDTO.ItemResult> results = new ArrayList<>();
+              int created = 0;
+              for (int i = 0; i < requests.size(); i++) {
+                BulkCouponResponseDTO.ItemResult result =
+                    BulkCouponResponseDTO.ItemResult.builder().index(i).build();
+                if (requests.get(i).getType() == null) {
+                  result.setError("Coupon type is required");
+                } else {
+                  created++;
+                }
+                results.add(result);
+              }
+              return BulkCouponResponseDTO.builder()
+                  .created(created)
+                  .failed(requests.size() - created)
+                  .results(results)
+                  .build();
+            });
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    couponImporter = new CouponImporter(couponService, objectMapper);
+  }
+
+  private static ByteArrayInputStream input(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testImportNdjsonReportsErrorsByLine() throws Exception {
+    String ndjson =
+        """
+        {"type":"CART_WISE","details":{"threshold":100,"discount":10}}
+
+        {"details":{"discount":5}}
+        {not json
+        {"type":"BXGY","details":{"buyProducts":[{"productId":1,"quantity":2}],"getProducts":[{"productId":3,"quantity":1}]}}
+        """;
+
+    CouponImportReportDTO report = couponImporter.importNdjson(input(ndjson));
+
+    assertThat(report.getProcessed()).isEqualTo(4);
+    assertThat(report.getCreated()).isEqualTo(2);
+    assertThat(report.getFailed()).isEqualTo(2);
+    assertThat(report.getErrors())
+        .extracting(CouponImportReportDTO.RecordError::getRecord)
+        .containsExactlyInAnyOrder(3L, 4L);
+    assertThat(chunks.get(0).get(2).getDetails().getBuyProducts()).hasSize(1);
+  }
+
+  @Test
+  void testImportNdjsonAcceptsCrLfAndLastLineWithoutBreak() throws Exception {
+    String ndjson =
+        "{\"type\":\"CART_WISE\",\"details\":{\"threshold\":100,\"discount\":10}}\r\n"
+            + "{\"type\":\"CART_WISE\",\"details\":{\"threshold\":50,\"discount\":5}}";
+
+    CouponImportReportDTO report = couponImporter.importNdjson(input(ndjson));
+
+    assertThat(report.getCreated()).isEqualTo(2);
+    assertThat(chunks.get(0).get(1).getDetails().getThreshold()).isEqualTo(50.0);
+  }
+
+  @Test
+  void testImportCsv() throws Exception {
+    String csv =
+        """
+        type,discount,threshold,productId,buyProducts,getProducts,repetitionLimit,startDate,expiryDate,maxRedemptions,maxRedemptionsPerCustomer
+        CART_WISE,10,100,,,,,2030-06-01,2030-12-31,500,2
+        PRODUCT_WISE,20,,1,,,,,,,
+        BXGY,,,,1:2;2:1,3:1,2,,,,
+        CART_WISE,abc,,,,,,,,,
+        """;
+
+    CouponImportReportDTO report = couponImporter.importCsv(input(csv));
+
+    assertThat(report.getCreated()).isEqualTo(3);
+    assertThat(report.getErrors()).singleElement().extracting("record").isEqualTo(4L);
+    assertThat(chunks.get(0).get(0).getStartDate()).isEqualTo(LocalDate.of(2030, 6, 1));
+    assertThat(chunks.get(0).get(0).getMaxRedemptions()).isEqualTo(500);
+    assertThat(chunks.get(0).get(0).getMaxRedemptionsPerCustomer()).isEqualTo(2);
+    assertThat(chunks.get(0).get(1).getMaxRedemptions()).isNull();
+    CouponRequestDTO bxgy = chunks.get(0).get(2);
+    assertThat(bxgy.getType()).isEqualTo(CouponType.BXGY);
+    assertThat(bxgy.getDetails().getBuyProducts())
+        .extracting(CouponRequestDTO.ProductQuantity::getQuantity)
+        .containsExactly(2, 1);
+    assertThat(bxgy.getDetails().getRepetitionLimit()).isEqualTo(2);
+  }
+
+  @Test
+  void testImportWritesInChunksAndCapsErrors() throws Exception {
+    StringBuilder ndjson = new StringBuilder();
+    int count = CouponImporter.CHUNK_SIZE * 2 + 5;
+    for (int i = 0; i < count; i++) {
+      ndjson.append("{\"details\":{}}\n");
+    }
+
+    CouponImportReportDTO report = couponImporter.importNdjson(input(ndjson.toString()));
+
+    assertThat(chunks).extracting(List::size).containsExactly(1000, 1000, 5);
+    assertThat(report.getFailed()).isEqualTo(count);
+    assertThat(report.getErrors()).hasSize(CouponImporter.MAX_REPORTED_ERRORS);
+    assertThat(report.isErrors_truncated()).isTrue();
+  }
+}
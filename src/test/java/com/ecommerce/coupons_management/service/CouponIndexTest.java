@@ -0,0 +1,106 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.model.*;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CouponIndexTest {
+
+  private CouponIndex couponIndex;
+
+  private Coupon cartWise(long id, Double threshold) {
+    return Coupon.builder().id(id).type(CouponType.CART_WISE).threshold(threshold).build();
+  }
+
+  private Coupon productWise(long id, long productId) {
+    return Coupon.builder().id(id).type(CouponType.PRODUCT_WISE).productId(productId).build();
+  }
+
+  private Coupon bxgy(long id) {
+    return Coupon.builder().id(id).type(CouponType.BXGY).build();
+  }
+
+  @BeforeEach
+  void setUp() {
+    couponIndex = new CouponIndex();
+  }
+
+  @Test
+  void testCartWiseCandidatesUseThreshold() {
+    couponIndex.put(cartWise(1L, 100.0));
+    couponIndex.put(cartWise(2L, 500.0));
+    couponIndex.put(cartWise(3L, null));
+
+    assertThat(couponIndex.candidates(List.of(), 50.0))
+        .extracting(Coupon::getId)
+        .containsExactly(3L);
+    assertThat(couponIndex.candidates(List.of(), 100.0))
+        .extracting(Coupon::getId)
+        .containsExactly(1L, 3L);
+    assertThat(couponIndex.candidates(List.of(), 1000.0))
+        .extracting(Coupon::getId)
+        .containsExactly(1L, 2L, 3L);
+  }
+
+  @Test
+  void testProductAndBxGyCandidatesAreKeyedByProduct() {
+    couponIndex.put(productWise(1L, 10L));
+    couponIndex.put(productWise(2L, 20L));
+    couponIndex.put(bxgy(3L), List.of(20L, 30L));
+
+    assertThat(couponIndex.candidates(List.of(20L), 0.0))
+        .extracting(Coupon::getId)
+        .containsExactly(2L, 3L);
+    assertThat(couponIndex.candidates(List.of(99L), 0.0)).isEmpty();
+  }
+
+  @Test
+  void testPutReplacesPreviousEntry() {
+    couponIndex.put(productWise(1L, 10L));
+    couponIndex.put(productWise(1L, 20L));
+
+    assertThat(couponIndex.candidates(List.of(10L), 0.0)).isEmpty();
+    assertThat(couponIndex.candidates(List.of(20L), 0.0)).hasSize(1);
+    assertThat(couponIndex.size()).isEqualTo(1);
+  }
+
+  @Test
+  void testPutKeepsBxGyBuyProducts() {
+    couponIndex.put(bxgy(1L), List.of(10L));
+    Coupon updated = bxgy(1L);
+    updated.setIsActive(false);
+    couponIndex.put(updated);
+
+    assertThat(couponIndex.candidates(List.of(10L), 0.0)).containsExactly(updated);
+  }
+
+  @Test
+  void testRemove() {
+    couponIndex.put(cartWise(1L, 10.0));
+    couponIndex.put(bxgy(2L), List.of(10L));
+    couponIndex.remove(1L);
+    couponIndex.remove(2L);
+
+    assertThat(couponIndex.candidates(List.of(10L), 100.0)).isEmpty();
+    assertThat(couponIndex.size()).isZero();
+  }
+
+  @Test
+  void testRebuildUsesBxGyDetails() {
+    Coupon coupon = bxgy(1L);
+    BxGyDetail detail =
+        BxGyDetail.builder()
+            .coupon(coupon)
+            .buyProducts(List.of(new BxGyProduct(10L, 2), new BxGyProduct(20L, 1)))
+            .build();
+
+    couponIndex.rebuild(List.of(coupon, cartWise(2L, 1.0)), List.of(detail));
+
+    assertThat(couponIndex.candidates(List.of(10L), 0.0)).containsExactly(coupon);
+    assertThat(couponIndex.candidates(List.of(20L), 0.0)).containsExactly(coupon);
+  }
+}
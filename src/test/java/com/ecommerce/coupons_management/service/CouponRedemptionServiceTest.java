@@ -0,0 +1,262 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.ecommerce.coupons_management.dto.ReservationResponseDTO;
+import com.ecommerce.coupons_management.enums.CouponType;
+import com.ecommerce.coupons_management.exception.CouponLimitExceededException;
+import com.ecommerce.coupons_management.exception.CouponNotFoundException;
+import com.ecommerce.coupons_management.model.*;
+import com.ecommerce.coupons_management.repository.CouponRepository;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class CouponRedemptionServiceTest {
+
+  private CouponIndex couponIndex;
+  private CouponRepository couponRepository;
+  private CouponBatchWriter couponBatchWriter;
+
+  /** Stand-ins for coupons.claimed_count and coupon_customer_uses. */
+  private final Map<Long, Long> claimedInDatabase = new HashMap<>();
+
+  private final Map<String, Integer> customerUsesInDatabase = new HashMap<>();
+
+  private MutableClock clock;
+  private CouponRedemptionService couponRedemptionService;
+
+  /** A clock the tests can move forward. */
+  private static final class MutableClock extends Clock {
+    private Instant now = Instant.parse("2030-01-01T00:00:00Z");
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    couponIndex = new CouponIndex();
+    couponRepository = mock(CouponRepository.class);
+    couponBatchWriter = mock(CouponBatchWriter.class);
+    when(couponBatchWriter.claimUses(anyLong(), anyLong()))
+        .thenAnswer(
+            i -> {
+              synchronized (claimedInDatabase) {
+                Long couponId = i.getArgument(0);
+                long claimed =
+                    claimedInDatabase.getOrDefault(couponId, 0L) + i.<Long>getArgument(1);
+                if (claimed > couponIndex.get(couponId).getMaxRedemptions()) return false;
+                claimedInDatabase.put(couponId, claimed);
+                return true;
+              }
+            });
+    when(couponBatchWriter.claimCustomerUse(anyLong(), anyString(), anyInt()))
+        .thenAnswer(
+            i -> {
+              synchronized (customerUsesInDatabase) {
+                String customerId = i.getArgument(1);
+                int uses = customerUsesInDatabase.getOrDefault(customerId, 0);
+                if (uses >= i.<Integer>getArgument(2)) return false;
+                customerUsesInDatabase.put(customerId, uses + 1);
+                return true;
+              }
+            });
+    clock = new MutableClock();
+    couponRedemptionService = newInstance(20);
+  }
+
+  private CouponRedemptionService newInstance(int claimSize) {
+    return new CouponRedemptionService(
+        couponIndex,
+        couponRepository,
+        couponBatchWriter,
+        new CatalogVersion(),
+        Duration.ofMinutes(5),
+        claimSize,
+        clock);
+  }
+
+  private Coupon coupon(Integer maxRedemptions, Integer maxPerCustomer) {
+    Coupon coupon =
+        Coupon.builder()
+            .id(1L)
+            .type(CouponType.CART_WISE)
+            .isActive(true)
+            .expiryDate(LocalDate.of(2030, 12, 31))
+            .maxRedemptions(maxRedemptions)
+            .maxRedemptionsPerCustomer(maxPerCustomer)
+            .redemptionCount(0L)
+            .build();
+    couponIndex.put(coupon);
+    return coupon;
+  }
+
+  @Test
+  void testReserveRefusesCouponThatIsNotLive() {
+    Coupon notStarted = coupon(null, null);
+    notStarted.setStartDate(LocalDate.of(2030, 6, 1));
+    couponIndex.remove(1L);
+    when(couponRepository.findById(1L)).thenReturn(Optional.of(notStarted));
+
+    assertThatThrownBy(() -> couponRedemptionService.reserve(1L, null))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Coupon expired or inactive");
+    assertThrows(CouponNotFoundException.class, () -> couponRedemptionService.reserve(2L, null));
+  }
+
+  @Test
+  void testReserveStopsAtGlobalLimit() {
+    Coupon coupon = coupon(2, null);
+
+    couponRedemptionService.reserve(1L, null);
+    couponRedemptionService.reserve(1L, null);
+
+    assertThrows(
+        CouponLimitExceededException.class, () -> couponRedemptionService.reserve(1L, null));
+    assertThat(couponRedemptionService.isExhausted(coupon)).isTrue();
+  }
+
+  @Test
+  void testConcurrentReservationsNeverOversell() throws Exception {
+    coupon(100, null);
+    AtomicInteger granted = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                try {
+                  couponRedemptionService.reserve(1L, null);
+                  granted.incrementAndGet();
+                } catch (CouponLimitExceededException e) {
+                  // limit reached
+                }
+              }));
+    }
+    for (Future<?> future : futures) future.get();
+    executor.shutdown();
+
+    assertThat(granted.get()).isEqualTo(100);
+  }
+
+  @Test
+  void testInstancesTogetherNeverOversell() {
+    coupon(30, null);
+    CouponRedemptionService other = newInstance(20);
+
+    int granted = 0;
+    for (int i = 0; i < 50; i++) {
+      for (CouponRedemptionService instance : List.of(couponRedemptionService, other)) {
+        try {
+          instance.reserve(1L, null);
+          granted++;
+        } catch (CouponLimitExceededException e) {
+          // limit reached
+        }
+      }
+    }
+
+    assertThat(granted).isEqualTo(30);
+    assertThat(claimedInDatabase).containsEntry(1L, 30L);
+  }
+
+  @Test
+  void testUnusedClaimsAreGivenBackOnClose() {
+    coupon(100, null);
+    for (int i = 0; i < 3; i++) {
+      couponRedemptionService.confirm(couponRedemptionService.reserve(1L, null).getToken());
+    }
+    couponRedemptionService.reserve(1L, null);
+
+    couponRedemptionService.close();
+
+    verify(couponBatchWriter).recordRedemptions(eq(Map.of(1L, 3L)), anyList());
+    verify(couponBatchWriter).returnUses(Map.of(1L, 17L));
+  }
+
+  @Test
+  void testPerCustomerLimitCountsStoredUses() {
+    coupon(null, 2);
+    customerUsesInDatabase.put("alice", 1);
+
+    couponRedemptionService.reserve(1L, "alice");
+
+    assertThrows(
+        CouponLimitExceededException.class, () -> couponRedemptionService.reserve(1L, "alice"));
+    assertThat(couponRedemptionService.reserve(1L, "bob").getToken()).isNotNull();
+    assertThrows(IllegalArgumentException.class, () -> couponRedemptionService.reserve(1L, null));
+  }
+
+  @Test
+  void testCancelAndExpiryReleaseUses() {
+    coupon(1, null);
+
+    ReservationResponseDTO first = couponRedemptionService.reserve(1L, null);
+    couponRedemptionService.cancel(first.getToken());
+    assertThat(couponRedemptionService.isExhausted(couponIndex.get(1L))).isFalse();
+    ReservationResponseDTO second = couponRedemptionService.reserve(1L, null);
+
+    clock.now = clock.now.plus(Duration.ofMinutes(6));
+    couponRedemptionService.releaseExpiredReservations();
+
+    assertThat(couponRedemptionService.reserve(1L, null)).isNotNull();
+    assertThrows(
+        IllegalArgumentException.class, () -> couponRedemptionService.confirm(second.getToken()));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testConfirmedRedemptionsAreFlushedInOneBatch() {
+    coupon(null, null);
+    for (int i = 0; i < 3; i++) {
+      couponRedemptionService.confirm(couponRedemptionService.reserve(1L, "c" + i).getToken());
+    }
+
+    couponRedemptionService.flush();
+    couponRedemptionService.flush();
+
+    ArgumentCaptor<Map<Long, Long>> counts = ArgumentCaptor.forClass(Map.class);
+    ArgumentCaptor<List<CouponRedemption>> redemptions = ArgumentCaptor.forClass(List.class);
+    verify(couponBatchWriter, times(1)).recordRedemptions(counts.capture(), redemptions.capture());
+    assertThat(counts.getValue()).containsEntry(1L, 3L);
+    assertThat(redemptions.getValue())
+        .extracting(CouponRedemption::getCustomerId)
+        .containsExactly("c0", "c1", "c2");
+  }
+
+  @Test
+  void testFailedFlushIsRetried() {
+    coupon(null, null);
+    couponRedemptionService.confirm(couponRedemptionService.reserve(1L, null).getToken());
+    doThrow(new RuntimeException("db down"))
+        .doNothing()
+        .when(couponBatchWriter)
+        .recordRedemptions(anyMap(), anyList());
+
+    couponRedemptionService.flush();
+    couponRedemptionService.flush();
+
+    verify(couponBatchWriter, times(2)).recordRedemptions(eq(Map.of(1L, 1L)), anyList());
+  }
+}
@@ -7,9 +7,12 @@ import static org.mockito.Mockito.*;
 
 import com.ecommerce.coupons_management.dto.*;
 import com.ecommerce.coupons_management.enums.CouponType;
-import com.ecommerce.coupons_management.exception.CouponNotFoundException;
+import com.ecommerce.coupons_management.exception.*;
+import com.ecommerce.coupons_management.metrics.CouponMetrics;
 import com.ecommerce.coupons_management.model.*;
 import com.ecommerce.coupons_management.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
 import java.util.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +28,31 @@ class CouponServiceTest {
   @Mock private CouponRepository couponRepository;
   @Mock private BxGyDetailRepository bxGyDetailRepository;
   @Mock private ProductRepository productRepository;
+  @Mock private BxGyRuleCache bxGyRuleCache;
+  @Mock private CouponBatchWriter couponBatchWriter;
+  @Mock private CouponCodeGenerator couponCodeGenerator;
+  @Mock private CouponRedemptionService couponRedemptionService;
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  @Spy private CouponMetrics couponMetrics = new CouponMetrics(meterRegistry);
+  @Spy private CouponIndex couponIndex = new CouponIndex();
+  @Spy private BestDealSearch bestDealSearch = new BestDealSearch(3, 1000);
+
+  @Spy
+  private CouponEvaluationPool couponEvaluationPool =
+      new CouponEvaluationPool(Integer.MAX_VALUE, Integer.MAX_VALUE, 1, meterRegistry);
+
+  @Spy private CatalogVersion catalogVersion = new CatalogVersion();
+
+  @Spy
+  private EvaluationCache evaluationCache =
+      new EvaluationCache(catalogVersion, 100, 60, meterRegistry);
+
+  @Spy
+  private CouponCodeCache couponCodeCache =
+      new CouponCodeCache(catalogVersion, 1000, 0.01, 100, 60, meterRegistry);
+
+  @Mock private CouponActivationScheduler couponActivationScheduler;
+
   @InjectMocks private CouponService couponService;
 
   private Coupon coupon;
@@ -119,6 +147,143 @@ class CouponServiceTest {
     verify(bxGyDetailRepository, times(1)).save(any(BxGyDetail.class));
   }
 
+  @Test
+  void testAddBxGyCouponStoresBuyAndGetSets() {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.BXGY);
+    CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+    List<CouponRequestDTO.ProductQuantity> buyProducts = new ArrayList<>();
+    List<CouponRequestDTO.ProductQuantity> getProducts = new ArrayList<>();
+    for (long i = 1; i <= 20; i++) {
+      CouponRequestDTO.ProductQuantity buy = new CouponRequestDTO.ProductQuantity();
+      buy.setProductId(i);
+      buy.setQuantity(2);
+      buyProducts.add(buy);
+      CouponRequestDTO.ProductQuantity get = new CouponRequestDTO.ProductQuantity();
+      get.setProductId(100 + i);
+      get.setQuantity(1);
+      getProducts.add(get);
+    }
+    details.setBuyProducts(buyProducts);
+    details.setGetProducts(getProducts);
+    request.setDetails(details);
+
+    when(couponRepository.save(any()))
+        .thenAnswer(
+            i -> {
+              Coupon c = i.getArgument(0);
+              c.setId(10L);
+              return c;
+            });
+
+    couponService.addCoupon(request);
+
+    ArgumentCaptor<BxGyDetail> saved = ArgumentCaptor.forClass(BxGyDetail.class);
+    verify(bxGyDetailRepository, times(1)).save(saved.capture());
+    assertThat(saved.getValue().getBuyProducts()).hasSize(20);
+    assertThat(saved.getValue().getGetProducts()).hasSize(20);
+    assertThat(couponIndex.candidates(List.of(20L), 0.0)).hasSize(1);
+  }
+
+  @Test
+  void testApplyBxGyCouponCountsEveryBuyProduct() {
+    coupon.setType(CouponType.BXGY);
+    Product second = Product.builder().id(2L).name("Second").price(30.0).build();
+    Product free = Product.builder().id(3L).name("Free").price(10.0).build();
+    when(productRepository.findAllById(any())).thenReturn(List.of(product, second, free));
+    when(couponRepository.findByCouponCode(anyString())).thenReturn(Optional.of(coupon));
+    when(bxGyRuleCache.getRules(anyLong()))
+        .thenReturn(
+            List.of(
+                BxGyDetail.builder()
+                    .buyProducts(List.of(new BxGyProduct(1L, 2), new BxGyProduct(2L, 2)))
+                    .getProducts(List.of(new BxGyProduct(3L, 1)))
+                    .build()));
+
+    CartRequestDTO request = prepareCartRequest("COUPON-BXGY");
+    List<CartRequestDTO.CartItem> items = new ArrayList<>(request.getCart().getItems());
+    for (long productId : new long[] {2L, 3L}) {
+      CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
+      item.setProductId(productId);
+      item.setQuantity(productId == 2L ? 4 : 1);
+      items.add(item);
+    }
+    request.getCart().setItems(items);
+
+    CartResponseDTO response = couponService.applyCoupon(request);
+
+    // 2 of product 1 and 4 of product 2 earn three free units of product 3.
+    assertThat(response.getUpdatedCart().getTotalDiscount()).isEqualTo(30.0);
+    assertThat(response.getUpdatedCart().getItems().get(2).getQuantity()).isEqualTo(4);
+  }
+
+  @Test
+  void testAddCouponsReportsPerItemResults() {
+    CouponRequestDTO cartWise = new CouponRequestDTO();
+    cartWise.setType(CouponType.CART_WISE);
+    CouponRequestDTO.Details cartDetails = new CouponRequestDTO.Details();
+    cartDetails.setThreshold(100.0);
+    cartDetails.setDiscount(10.0);
+    cartWise.setDetails(cartDetails);
+
+    CouponRequestDTO missingProduct = new CouponRequestDTO();
+    missingProduct.setType(CouponType.PRODUCT_WISE);
+    missingProduct.setDetails(new CouponRequestDTO.Details());
+
+    CouponRequestDTO bxgy = new CouponRequestDTO();
+    bxgy.setType(CouponType.BXGY);
+    CouponRequestDTO.Details bxgyDetails = new CouponRequestDTO.Details();
+    CouponRequestDTO.ProductQuantity buy = new CouponRequestDTO.ProductQuantity();
+    buy.setProductId(1L);
+    buy.setQuantity(2);
+    bxgyDetails.setBuyProducts(List.of(buy));
+    bxgyDetails.setGetProducts(List.of(buy));
+    bxgy.setDetails(bxgyDetails);
+
+    doAnswer(
+            i -> {
+              List<Coupon> coupons = i.getArgument(0);
+              long id = 100;
+              for (Coupon c : coupons) c.setId(id++);
+              return null;
+            })
+        .when(couponBatchWriter)
+        .insert(anyList(), anyList());
+
+    BulkCouponResponseDTO response =
+        couponService.addCoupons(List.of(cartWise, missingProduct, bxgy));
+
+    assertThat(response.getCreated()).isEqualTo(2);
+    assertThat(response.getFailed()).isEqualTo(1);
+    assertThat(response.getResults())
+        .extracting(
+            BulkCouponResponseDTO.ItemResult::getIndex,
+            BulkCouponResponseDTO.ItemResult::getCoupon_id)
+        .containsExactly(tuple(0, 100L), tuple(1, null), tuple(2, 101L));
+    assertThat(response.getResults().get(1).getError()).contains("Product ID required");
+    verify(couponBatchWriter, times(1)).insert(anyList(), argThat(details -> details.size() == 1));
+    verify(couponRepository, never()).save(any());
+    assertThat(couponIndex.candidates(List.of(1L), 100.0))
+        .extracting(Coupon::getId)
+        .containsExactly(100L, 101L);
+  }
+
+  @Test
+  void testAddCouponsReportsFailedChunk() {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.CART_WISE);
+    doThrow(new RuntimeException("constraint violation"))
+        .when(couponBatchWriter)
+        .insert(anyList(), anyList());
+
+    BulkCouponResponseDTO response = couponService.addCoupons(List.of(request));
+
+    assertThat(response.getCreated()).isZero();
+    assertThat(response.getFailed()).isEqualTo(1);
+    assertThat(response.getResults().get(0).getError()).contains("constraint violation");
+    assertThat(couponIndex.size()).isZero();
+  }
+
   private CartRequestDTO prepareCartRequest(String code) {
     CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
     item.setProductId(1L);
@@ -134,7 +299,7 @@ class CouponServiceTest {
 
   @Test
   void testApplyCartWiseCouponSuccess() {
-    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
     when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
 
     CartResponseDTO response = couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
@@ -159,7 +324,7 @@ class CouponServiceTest {
 
     when(couponRepository.findById(1L)).thenReturn(Optional.of(coupon));
     when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
-    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
 
     CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
     item.setProductId(1L);
@@ -183,20 +348,18 @@ class CouponServiceTest {
   @Test
   void testApplyBxGyCouponSuccess() {
     coupon.setType(CouponType.BXGY);
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
     when(couponRepository.findByCouponCode(anyString())).thenReturn(Optional.of(coupon));
 
     BxGyDetail bxgy =
         BxGyDetail.builder()
             .id(1L)
-            .buyProductId(1L)
-            .buyQuantity(2)
-            .getProductId(1L)
-            .getQuantity(1)
+            .buyProducts(List.of(new BxGyProduct(1L, 2)))
+            .getProducts(List.of(new BxGyProduct(1L, 1)))
             .coupon(coupon)
             .build();
 
-    when(bxGyDetailRepository.findByCouponId(anyLong())).thenReturn(List.of(bxgy));
+    when(bxGyRuleCache.getRules(anyLong())).thenReturn(List.of(bxgy));
 
     CartResponseDTO response = couponService.applyCoupon(prepareCartRequest("COUPON-BXGY"));
     assertThat(response.getMessage()).contains("Buy X Get Y");
@@ -205,7 +368,7 @@ class CouponServiceTest {
   @Test
   void testApplyCouponExpiredOrInactive() {
     coupon.setIsActive(false);
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
     when(couponRepository.findByCouponCode(anyString())).thenReturn(Optional.of(coupon));
 
     assertThrows(
@@ -216,26 +379,110 @@ class CouponServiceTest {
   @Test
   void testApplyCouponInvalidCode() {
     when(couponRepository.findByCouponCode(anyString())).thenReturn(Optional.empty());
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
     assertThrows(
         CouponNotFoundException.class,
         () -> couponService.applyCoupon(prepareCartRequest("INVALID")));
   }
 
   @Test
-  void testGetProductDiscountProductWise() {
-    coupon.setType(CouponType.PRODUCT_WISE);
-    coupon.setProductId(1L);
-    when(couponRepository.findById(1L)).thenReturn(Optional.of(coupon));
+  void testApplyCouponResolvesPricesInOneQuery() {
+    coupon.setType(CouponType.BXGY);
+    Product other = Product.builder().id(2L).name("Other Product").price(40.0).build();
+    when(productRepository.findAllById(any())).thenReturn(List.of(product, other));
+    when(couponRepository.findByCouponCode(anyString())).thenReturn(Optional.of(coupon));
+    when(bxGyRuleCache.getRules(anyLong()))
+        .thenReturn(
+            List.of(
+                BxGyDetail.builder()
+                    .buyProducts(List.of(new BxGyProduct(1L, 2)))
+                    .getProducts(List.of(new BxGyProduct(2L, 1)))
+                    .coupon(coupon)
+                    .build()));
+
+    CartRequestDTO request = prepareCartRequest("COUPON-BXGY");
+    CartRequestDTO.CartItem second = new CartRequestDTO.CartItem();
+    second.setProductId(2L);
+    second.setQuantity(1);
+    request.getCart().setItems(List.of(request.getCart().getItems().get(0), second));
 
-    double discount = couponService.getProductDiscount(1L, 2, 100.0, 1L);
-    assertThat(discount).isEqualTo(20.0);
+    CartResponseDTO response = couponService.applyCoupon(request);
+
+    assertThat(response.getUpdatedCart().getTotalPrice()).isEqualTo(240.0);
+    assertThat(response.getUpdatedCart().getTotalDiscount()).isEqualTo(40.0);
+    verify(productRepository, times(1)).findAllById(any());
+    verify(productRepository, never()).findById(anyLong());
   }
 
   @Test
-  void testGetProductDiscountInvalidCoupon() {
-    when(couponRepository.findById(1L)).thenReturn(Optional.empty());
-    assertThat(couponService.getProductDiscount(1L, 2, 100.0, 1L)).isZero();
+  void testApplyCouponUnknownProduct() {
+    when(productRepository.findAllById(any())).thenReturn(List.of());
+    assertThrows(
+        RuntimeException.class, () -> couponService.applyCoupon(prepareCartRequest("COUPON-TEST")));
+  }
+
+  private BatchApplyRequestDTO batchRequest(Long couponId, String code, long productId) {
+    BatchApplyRequestDTO request = new BatchApplyRequestDTO();
+    request.setCouponId(couponId);
+    request.setCouponCode(code);
+    request.setCart(prepareCartRequest(code).getCart());
+    request.getCart().getItems().get(0).setProductId(productId);
+    return request;
+  }
+
+  @Test
+  void testApplyCouponsResolvesEverythingInBulk() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findAllById(any())).thenReturn(List.of(coupon));
+    when(couponRepository.findByCouponCodeIn(any())).thenReturn(List.of(coupon));
+
+    List<BatchApplyResultDTO> results =
+        couponService.applyCoupons(
+            List.of(
+                batchRequest(1L, null, 1L),
+                batchRequest(null, "COUPON-TEST", 1L),
+                batchRequest(1L, null, 1L)),
+            10);
+
+    assertThat(results).extracting(BatchApplyResultDTO::getIndex).containsExactly(10, 11, 12);
+    assertThat(results).allMatch(result -> result.getError() == null);
+    assertThat(results.get(0).getUpdated_cart().getTotalDiscount()).isEqualTo(20.0);
+    verify(productRepository, times(1)).findAllById(any());
+    verify(couponRepository, times(1)).findAllById(any());
+    verify(couponRepository, never()).findByCouponCode(anyString());
+    verify(couponEvaluationPool).evaluateBatch(anyList(), any());
+  }
+
+  @Test
+  void testApplyCouponsReportsFailedPairs() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findAllById(any())).thenReturn(List.of(coupon));
+    when(couponRepository.findByCouponCodeIn(any())).thenReturn(List.of());
+
+    List<BatchApplyResultDTO> results =
+        couponService.applyCoupons(
+            List.of(
+                batchRequest(null, "UNKNOWN", 1L),
+                batchRequest(1L, null, 99L),
+                batchRequest(1L, null, 1L)),
+            0);
+
+    assertThat(results.get(0).getError()).contains("Invalid coupon code");
+    assertThat(results.get(1).getError()).isEqualTo("Product not found: 99");
+    assertThat(results.get(2).getError()).isNull();
+    assertThat(results.get(2).getMessage()).contains("Cart-wise");
+  }
+
+  @Test
+  void testApplyCouponProductWise() {
+    coupon.setType(CouponType.PRODUCT_WISE);
+    coupon.setProductId(1L);
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+
+    CartResponseDTO response = couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+    assertThat(response.getUpdatedCart().getTotalDiscount()).isEqualTo(20.0);
+    assertThat(response.getMessage()).contains("Product-wise");
   }
 
   @Test
@@ -256,7 +503,7 @@ class CouponServiceTest {
 
     when(couponRepository.findById(1L)).thenReturn(Optional.of(coupon));
     when(couponRepository.findByCouponCode("SAVE10")).thenReturn(Optional.of(coupon));
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
 
     CartRequestDTO request = prepareCartRequest(null);
 
@@ -276,6 +523,30 @@ class CouponServiceTest {
     assertThat(result.getContent()).hasSize(1);
   }
 
+  @Test
+  void testGetCouponsAfterReturnsCursorForNextSlice() {
+    when(couponRepository.findBy(any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+        .thenReturn(Window.from(List.of(coupon), ScrollPosition::offset, true))
+        .thenReturn(Window.from(List.of(), ScrollPosition::offset, false));
+
+    CouponCursorPageDTO first = couponService.getCouponsAfter(null, 1, "id");
+    CouponCursorPageDTO last = couponService.getCouponsAfter(first.getNext_cursor(), 1, "id");
+
+    assertThat(first.getContent()).containsExactly(coupon);
+    assertThat(first.isHas_next()).isTrue();
+    assertThat(last.getNext_cursor()).isNull();
+    ArgumentCaptor<ScrollPosition> positions = ArgumentCaptor.forClass(ScrollPosition.class);
+    verify(couponRepository, times(2)).findBy(positions.capture(), any(Sort.class), any());
+    assertThat(((KeysetScrollPosition) positions.getAllValues().get(1)).getKeys())
+        .containsEntry("id", 1L);
+  }
+
+  @Test
+  void testGetCouponsAfterRejectsInvalidCursor() {
+    assertThrows(
+        IllegalArgumentException.class, () -> couponService.getCouponsAfter("bogus", 10, "id"));
+  }
+
   @Test
   void testGetCouponByIdFound() {
     when(couponRepository.findById(1L)).thenReturn(Optional.of(coupon));
@@ -304,68 +575,381 @@ class CouponServiceTest {
 
   @Test
   void testGetApplicableCoupons() {
-    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-    when(couponRepository.findAll()).thenReturn(List.of(coupon));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon);
 
     CartRequestDTO req = prepareCartRequest(null);
-    List<Coupon> applicable = couponService.getApplicableCoupons(req);
-    assertThat(applicable).isNotEmpty();
+    assertThat(couponService.evaluateApplicableCoupons(req).getApplicable_coupons()).isNotEmpty();
   }
 
   @Test
   void testGetApplicableCouponsCartWiseThresholdNotMet() {
     coupon.setThreshold(5000.0);
-    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-    when(couponRepository.findAll()).thenReturn(List.of(coupon));
-
-    List<Coupon> applicable = couponService.getApplicableCoupons(prepareCartRequest(null));
-    assertThat(applicable).isEmpty();
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon);
+
+    assertThat(
+            couponService
+                .evaluateApplicableCoupons(prepareCartRequest(null))
+                .getApplicable_coupons())
+        .isEmpty();
   }
 
   @Test
   void testGetApplicableCoupons_BXGYLogic() {
     coupon.setType(CouponType.BXGY);
-    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-    when(couponRepository.findAll()).thenReturn(List.of(coupon));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon, List.of(1L));
 
     BxGyDetail bxgy =
         BxGyDetail.builder()
-            .buyProductId(1L)
-            .buyQuantity(2)
-            .getProductId(2L)
-            .getQuantity(1)
+            .buyProducts(List.of(new BxGyProduct(1L, 2)))
+            .getProducts(List.of(new BxGyProduct(2L, 1)))
             .coupon(coupon)
             .build();
-    when(bxGyDetailRepository.findByCouponId(anyLong())).thenReturn(List.of(bxgy));
+    when(bxGyRuleCache.getRules(anyCollection())).thenReturn(Map.of(1L, List.of(bxgy)));
+
+    assertThat(
+            couponService
+                .evaluateApplicableCoupons(prepareCartRequest(null))
+                .getApplicable_coupons())
+        .isNotEmpty();
+  }
+
+  @Test
+  void testGetApplicableCouponsSkipsCouponsNotInIndex() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon);
+    couponIndex.remove(coupon.getId());
+
+    assertThat(
+            couponService
+                .evaluateApplicableCoupons(prepareCartRequest(null))
+                .getApplicable_coupons())
+        .isEmpty();
+    verify(couponRepository, never()).findAll();
+  }
+
+  @Test
+  void testAddCouponUpdatesIndex() {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.PRODUCT_WISE);
+    CouponRequestDTO.Details details = new CouponRequestDTO.Details();
+    details.setProductId("1");
+    details.setDiscount(15.0);
+    request.setDetails(details);
+
+    when(couponRepository.save(any(Coupon.class)))
+        .thenAnswer(
+            i -> {
+              Coupon c = i.getArgument(0);
+              c.setId(7L);
+              return c;
+            });
+
+    couponService.addCoupon(request);
+
+    assertThat(couponIndex.candidates(List.of(1L), 0.0))
+        .extracting(Coupon::getId)
+        .containsExactly(7L);
+  }
+
+  @Test
+  void testEvaluateApplicableCoupons() {
+    Coupon productWise =
+        Coupon.builder()
+            .id(2L)
+            .couponCode("COUPON-PROD")
+            .type(CouponType.PRODUCT_WISE)
+            .productId(1L)
+            .discount(50.0)
+            .isActive(true)
+            .expiryDate(LocalDate.now().plusDays(10))
+            .build();
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon);
+    couponIndex.put(productWise);
+
+    ApplicableCouponsResponseDTO response =
+        couponService.evaluateApplicableCoupons(prepareCartRequest(null));
+
+    assertThat(response.getApplicable_coupons())
+        .extracting(
+            ApplicableCouponsResponseDTO.CouponInfo::getCoupon_id,
+            ApplicableCouponsResponseDTO.CouponInfo::getType,
+            ApplicableCouponsResponseDTO.CouponInfo::getDiscount)
+        .containsExactly(tuple(1L, "cart_wise", 20.0), tuple(2L, "product_wise", 100.0));
+    verify(productRepository, times(1)).findAllById(any());
+  }
+
+  @Test
+  void testEvaluateApplicableCouponsSkipsInactive() {
+    coupon.setIsActive(false);
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon);
+
+    assertThat(
+            couponService
+                .evaluateApplicableCoupons(prepareCartRequest(null))
+                .getApplicable_coupons())
+        .isEmpty();
+  }
+
+  @Test
+  void testApplyCouponMemoizesUnchangedCart() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+
+    CartResponseDTO first = couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+    CartResponseDTO second = couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+
+    assertThat(second).isSameAs(first);
+    verify(productRepository, times(1)).findAllById(any());
+    verify(couponRepository, times(1)).findByCouponCode("COUPON-TEST");
+  }
+
+  @Test
+  void testApplyCouponRecomputesAfterCouponWrite() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+    when(couponRepository.save(any(Coupon.class))).thenAnswer(i -> i.getArgument(0));
+
+    couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+    coupon.setDiscount(50.0);
+    couponService.save(coupon);
+    CartResponseDTO response = couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+
+    assertThat(response.getUpdatedCart().getTotalDiscount()).isEqualTo(100.0);
+    verify(couponRepository, times(2)).findByCouponCode("COUPON-TEST");
+  }
+
+  @Test
+  void testApplyCouponChecksRedemptionLimitOnHit() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+
+    couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+    when(couponRedemptionService.isExhausted(coupon)).thenReturn(true);
+
+    assertThrows(
+        CouponLimitExceededException.class,
+        () -> couponService.applyCoupon(prepareCartRequest("COUPON-TEST")));
+  }
+
+  @Test
+  void testEvaluateApplicableCouponsMemoizesAndFiltersExhausted() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon);
+
+    assertThat(
+            couponService
+                .evaluateApplicableCoupons(prepareCartRequest(null))
+                .getApplicable_coupons())
+        .hasSize(1);
+    when(couponRedemptionService.isExhausted(coupon)).thenReturn(true);
+
+    assertThat(
+            couponService
+                .evaluateApplicableCoupons(prepareCartRequest(null))
+                .getApplicable_coupons())
+        .isEmpty();
+    verify(productRepository, times(1)).findAllById(any());
+  }
+
+  @Test
+  void testApplyCouponRefusesUnknownCodeWithoutQuery() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findAll()).thenReturn(List.of(coupon));
+    couponService.rebuildIndex();
+
+    assertThrows(
+        CouponNotFoundException.class,
+        () -> couponService.applyCoupon(prepareCartRequest("COUPON-GUESS")));
+    verify(couponRepository, never()).findByCouponCode(anyString());
+  }
+
+  @Test
+  void testApplyCouponReadsCouponByCodeOnce() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+    CartRequestDTO otherCart = prepareCartRequest("COUPON-TEST");
+    otherCart.getCart().getItems().get(0).setQuantity(3);
+
+    couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+    CartResponseDTO response = couponService.applyCoupon(otherCart);
+
+    assertThat(response.getUpdatedCart().getTotalDiscount()).isEqualTo(30.0);
+    verify(couponRepository, times(1)).findByCouponCode("COUPON-TEST");
+  }
+
+  @Test
+  void testFindBestDealStacksCoupons() {
+    Coupon productWise =
+        Coupon.builder()
+            .id(2L)
+            .type(CouponType.PRODUCT_WISE)
+            .productId(1L)
+            .discount(50.0)
+            .isActive(true)
+            .priority(10)
+            .build();
+    Coupon exclusive =
+        Coupon.builder()
+            .id(3L)
+            .type(CouponType.CART_WISE)
+            .discount(30.0)
+            .isActive(true)
+            .exclusive(true)
+            .build();
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    couponIndex.put(coupon);
+    couponIndex.put(productWise);
+    couponIndex.put(exclusive);
+
+    BestDealResponseDTO response = couponService.findBestDeal(prepareCartRequest(null));
+
+    // 50% off the product first (200 -> 100), then 10% cart-wise on the remaining 100.
+    assertThat(response.getCoupon_ids()).containsExactly(2L, 1L);
+    assertThat(response.getUpdated_cart().getTotalDiscount()).isEqualTo(110.0);
+    assertThat(response.getUpdated_cart().getFinalPrice()).isEqualTo(90.0);
+    assertThat(response.isSearch_complete()).isTrue();
+  }
+
+  @Test
+  void testApplyCouponCapsBxGyAtRepetitionLimit() {
+    coupon.setType(CouponType.BXGY);
+    CartRequestDTO request = prepareCartRequest("COUPON-TEST");
+    request.getCart().getItems().get(0).setQuantity(10);
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(bxGyRuleCache.getRules(1L))
+        .thenReturn(
+            List.of(
+                BxGyDetail.builder()
+                    .buyProducts(List.of(new BxGyProduct(1L, 2)))
+                    .getProducts(List.of(new BxGyProduct(1L, 1)))
+                    .repetitionLimit(2)
+                    .coupon(coupon)
+                    .build()));
+
+    CartResponseDTO response = couponService.applyCoupon(request);
+
+    // 10 units would earn 5 free ones, but the rule applies at most twice.
+    assertThat(response.getUpdatedCart().getTotalDiscount()).isEqualTo(200.0);
+  }
+
+  @Test
+  void testApplyCouponRecordsStagesAndEvaluations() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+
+    couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+
+    for (String stage :
+        List.of(
+            CouponMetrics.PRODUCT_LOOKUP, CouponMetrics.COUPON_LOOKUP, CouponMetrics.DISCOUNT)) {
+      assertThat(
+              meterRegistry
+                  .get("coupons.evaluation.stage")
+                  .tags("operation", "apply", "stage", stage)
+                  .timer()
+                  .count())
+          .isEqualTo(1);
+    }
+    assertThat(
+            meterRegistry
+                .get("coupons.evaluations")
+                .tags("operation", "apply", "type", "cart_wise")
+                .counter()
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void testApplyCouponCountsRejections() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode(anyString())).thenReturn(Optional.empty());
+
+    assertThrows(
+        CouponNotFoundException.class,
+        () -> couponService.applyCoupon(prepareCartRequest("UNKNOWN")));
+
+    assertThat(
+            meterRegistry
+                .get("coupons.rejections")
+                .tags("type", "unknown", "reason", "invalid_code")
+                .counter()
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void testApplyCouponRejectsExhaustedCoupon() {
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+    when(couponRedemptionService.isExhausted(coupon)).thenReturn(true);
 
-    List<Coupon> applicable = couponService.getApplicableCoupons(prepareCartRequest(null));
-    assertThat(applicable).isNotEmpty();
+    assertThrows(
+        CouponLimitExceededException.class,
+        () -> couponService.applyCoupon(prepareCartRequest("COUPON-TEST")));
   }
 
   @Test
-  void testGetApplicableCouponsForSpecificCoupon() {
-    when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+  void testApplyCouponRejectsCouponBeforeStartDate() {
+    coupon.setStartDate(LocalDate.now().plusDays(1));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
 
-    double discount = couponService.getApplicableCoupons(coupon, prepareCartRequest(null));
-    assertThat(discount).isGreaterThan(0);
+    assertThrows(
+        CouponNotFoundException.class,
+        () -> couponService.applyCoupon(prepareCartRequest("COUPON-TEST")));
   }
 
   @Test
-  void testGetApplicableCouponsForSpecificCoupon_BXGY() {
+  void testAddCouponWithFutureStartDateIsScheduledNotIndexed() {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.CART_WISE);
+    request.setStartDate(LocalDate.now().plusDays(3));
+    when(couponRepository.save(any(Coupon.class)))
+        .thenAnswer(
+            i -> {
+              Coupon saved = i.getArgument(0);
+              saved.setId(5L);
+              return saved;
+            });
+
+    Coupon saved = couponService.addCoupon(request);
+
+    assertThat(couponIndex.get(5L)).isNull();
+    verify(couponActivationScheduler).schedule(List.of(saved));
+  }
+
+  @Test
+  void testAddCouponRejectsStartDateAfterExpiryDate() {
+    CouponRequestDTO request = new CouponRequestDTO();
+    request.setType(CouponType.CART_WISE);
+    request.setStartDate(LocalDate.now().plusDays(10));
+    request.setExpiryDate(LocalDate.now().plusDays(5));
+
+    assertThrows(IllegalArgumentException.class, () -> couponService.addCoupon(request));
+    verify(couponRepository, never()).save(any());
+  }
+
+  @Test
+  void testApplyCouponBxGyOnSameProduct() {
     coupon.setType(CouponType.BXGY);
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
-    when(bxGyDetailRepository.findByCouponId(anyLong()))
+    when(productRepository.findAllById(any())).thenReturn(List.of(product));
+    when(couponRepository.findByCouponCode("COUPON-TEST")).thenReturn(Optional.of(coupon));
+    when(bxGyRuleCache.getRules(anyLong()))
         .thenReturn(
             List.of(
                 BxGyDetail.builder()
-                    .buyProductId(1L)
-                    .buyQuantity(2)
-                    .getProductId(1L)
-                    .getQuantity(1)
+                    .buyProducts(List.of(new BxGyProduct(1L, 2)))
+                    .getProducts(List.of(new BxGyProduct(1L, 1)))
                     .coupon(coupon)
                     .build()));
 
-    double discount = couponService.getApplicableCoupons(coupon, prepareCartRequest(null));
-    assertThat(discount).isGreaterThan(0);
+    CartResponseDTO response = couponService.applyCoupon(prepareCartRequest("COUPON-TEST"));
+    assertThat(response.getUpdatedCart().getTotalDiscount()).isPositive();
   }
 }
@@ -0,0 +1,107 @@
+package com.ecommerce.coupons_management.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.ecommerce.coupons_management.dto.CartRequestDTO;
+import com.ecommerce.coupons_management.dto.CartResponseDTO;
+import com.ecommerce.coupons_management.model.Coupon;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EvaluationCacheTest {
+
+  private final LocalDate today = LocalDate.of(2026, 10, 18);
+
+  private MeterRegistry meterRegistry;
+  private CatalogVersion catalogVersion;
+  private EvaluationCache evaluationCache;
+
+  private static CartRequestDTO.CartItem item(long productId, int quantity) {
+    CartRequestDTO.CartItem item = new CartRequestDTO.CartItem();
+    item.setProductId(productId);
+    item.setQuantity(quantity);
+    return item;
+  }
+
+  private static EvaluationCache.Applied applied() {
+    return new EvaluationCache.Applied(Coupon.builder().id(1L).build(), new CartResponseDTO());
+  }
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    catalogVersion = new CatalogVersion();
+    evaluationCache = new EvaluationCache(catalogVersion, 100, 60, meterRegistry);
+  }
+
+  @Test
+  void testApplicableKeyIgnoresLineOrderAndSplitting() {
+    EvaluationCache.Key key =
+        evaluationCache.applicableKey(List.of(item(2, 1), item(1, 2), item(2, 2)), today);
+
+    assertThat(evaluationCache.applicableKey(List.of(item(1, 2), item(2, 3)), today))
+        .isEqualTo(key);
+    assertThat(evaluationCache.applicableKey(List.of(item(1, 2), item(2, 4)), today))
+        .isNotEqualTo(key);
+  }
+
+  @Test
+  void testApplyKeyKeepsLines() {
+    assertThat(evaluationCache.applyKey("A", List.of(item(1, 1), item(2, 1)), today))
+        .isEqualTo(evaluationCache.applyKey("A", List.of(item(1, 1), item(2, 1)), today))
+        .isNotEqualTo(evaluationCache.applyKey("A", List.of(item(2, 1), item(1, 1)), today))
+        .isNotEqualTo(evaluationCache.applyKey("B", List.of(item(1, 1), item(2, 1)), today));
+  }
+
+  @Test
+  void testWritesAndDayChangeMissEarlierEntries() {
+    List<CartRequestDTO.CartItem> cart = List.of(item(1, 1));
+    evaluationCache.putApplied(evaluationCache.applyKey("A", cart, today), applied());
+    assertThat(evaluationCache.getApplied(evaluationCache.applyKey("A", cart, today))).isNotNull();
+
+    assertThat(evaluationCache.getApplied(evaluationCache.applyKey("A", cart, today.plusDays(1))))
+        .isNull();
+    catalogVersion.productsChanged();
+    assertThat(evaluationCache.getApplied(evaluationCache.applyKey("A", cart, today))).isNull();
+    evaluationCache.putApplied(evaluationCache.applyKey("A", cart, today), applied());
+    catalogVersion.catalogChanged();
+    assertThat(evaluationCache.getApplied(evaluationCache.applyKey("A", cart, today))).isNull();
+  }
+
+  @Test
+  void testHitsAndMissesAreMetered() {
+    EvaluationCache.Key key = evaluationCache.applicableKey(List.of(item(1, 1)), today);
+    evaluationCache.getApplicable(key);
+    evaluationCache.putApplicable(key, List.of());
+    evaluationCache.getApplicable(key);
+
+    assertThat(
+            meterRegistry
+                .get("cache.gets")
+                .tags("cache", "coupons.applicable", "result", "hit")
+                .functionCounter()
+                .count())
+        .isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get("cache.gets")
+                .tags("cache", "coupons.applicable", "result", "miss")
+                .functionCounter()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void testZeroSizeDisablesCache() {
+    evaluationCache = new EvaluationCache(catalogVersion, 0, 60, meterRegistry);
+    EvaluationCache.Key key = evaluationCache.applyKey("A", List.of(item(1, 1)), today);
+
+    evaluationCache.putApplied(key, applied());
+
+    assertThat(evaluationCache.getApplied(key)).isNull();
+  }
+}